@@ -1,6 +1,20 @@
 import functions.*;
 
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
 public class Main {
+    private static volatile boolean stopReaders; // сигнал остановки потокам-читателям
+
     public static void main(String[] args) {
         System.out.println("ТЕСТИРОВАНИЕ КЛАССОВ TABULATED FUNCTION\n");
 
@@ -30,17 +44,847 @@ public class Main {
             System.out.println("Ловим IllegalArgumentException LinkedListTabulatedFunction (points < 2): " + e.getMessage());
         }
 
+        try {
+            TabulatedFunction invalid5 = new RingBufferTabulatedFunction(3, 3, new double[]{0, 1});
+        } catch (IllegalArgumentException e) {
+            System.out.println("Ловим IllegalArgumentException RingBufferTabulatedFunction (left >= right): " + e.getMessage());
+        }
+
+        try {
+            TabulatedFunction invalid6 = new RingBufferTabulatedFunction(0, 1, new double[0]);
+        } catch (IllegalArgumentException e) {
+            System.out.println("Ловим IllegalArgumentException RingBufferTabulatedFunction (points < 2): " + e.getMessage());
+        }
+
         // тестирование ArrayTabulatedFunction
         System.out.println("\nТест: ArrayTabulatedFunction");
         testFunction(new ArrayTabulatedFunction(0, 4, new double[]{0, 1, 4, 9, 16}));
+        testBulkAdd();
+        testSlopeCache();
+        testUniformEvaluation();
 
         // тестирование LinkedListTabulatedFunction
         System.out.println("\nТест: LinkedListTabulatedFunction");
         testFunction(new LinkedListTabulatedFunction(0, 4, new double[]{0, 1, 4, 9, 16}));
+        testListConcurrentReads();
+
+        // тестирование SkipListTabulatedFunction
+        System.out.println("\nТест: SkipListTabulatedFunction");
+        testFunction(new SkipListTabulatedFunction(0, 4, new double[]{0, 1, 4, 9, 16}));
+
+        // тестирование ConcurrentTabulatedFunction
+        System.out.println("\nТест: ConcurrentTabulatedFunction");
+        testFunction(new ConcurrentTabulatedFunction(0, 4, new double[]{0, 1, 4, 9, 16}));
+        testConcurrentAccess();
+        testMappedFile();
+        testInterpolation();
+        testSnapshot();
+        testTextFormat();
+        testInstrumentation();
+        testOffHeap();
+        testExpression();
+        testResampling();
+        testRingBuffer();
+        testCompression();
+        testRegistry();
+        testJournal();
+        testParallelEvaluation();
 
         System.out.println("\nВСЕ ТЕСТЫ ЗАВЕРШЕНЫ");
     }
 
+    // проверка параллельного вычисления: результаты побитово совпадают с getFunctionValue
+    private static void testParallelEvaluation() {
+        System.out.println("\nПроверка параллельного вычисления:");
+        double[] values = new double[1000];
+        for (int i = 0; i < values.length; i++)
+            values[i] = Math.sin(i * 0.01);
+        ArrayTabulatedFunction cached = new ArrayTabulatedFunction(0, 10, values);
+        cached.setSlopeCacheEnabled(true);
+        TabulatedFunction[] functions = {
+                new ArrayTabulatedFunction(0, 10, values),
+                new LinkedListTabulatedFunction(0, 10, values),
+                new SkipListTabulatedFunction(0, 10, values),
+                new RingBufferTabulatedFunction(0, 10, values),
+                new CompressedTabulatedFunction(new ArrayTabulatedFunction(0, 10, values)),
+                cached,
+                new InterpolatedTabulatedFunction(new ArrayTabulatedFunction(0, 10, values),
+                        InterpolationMethod.CUBIC_SPLINE),
+                new InstrumentedTabulatedFunction(new ArrayTabulatedFunction(0, 10, values)),
+                new JournaledTabulatedFunction(new LinkedListTabulatedFunction(0, 10, values), 4)
+        };
+        double[] xValues = new double[100000];
+        for (int i = 0; i < xValues.length; i++)
+            xValues[i] = (i * 0.6180339887498949) % 10.5 - 0.25; // x вразброс, в том числе вне области
+        double[] out = new double[xValues.length];
+        double[] sampled = new double[xValues.length];
+        ForkJoinPool pool = new ForkJoinPool(4);
+        for (TabulatedFunction func : functions) {
+            ParallelEvaluation.evaluate(func, xValues, out, pool);
+            ParallelEvaluation.sample(func, -0.25, 1e-4, sampled, pool);
+            int differences = 0;
+            for (int i = 0; i < xValues.length; i++) {
+                if (Double.doubleToLongBits(out[i]) != Double.doubleToLongBits(func.getFunctionValue(xValues[i])))
+                    differences++;
+                if (Double.doubleToLongBits(sampled[i]) != Double.doubleToLongBits(func.getFunctionValue(-0.25 + i * 1e-4)))
+                    differences++;
+            }
+            String name = func.getClass().getSimpleName();
+            if (func == cached)
+                name += " (кэш наклонов)";
+            else if (func instanceof InterpolatedTabulatedFunction)
+                name += " (" + ((InterpolatedTabulatedFunction) func).getInterpolationMethod() + ")";
+            System.out.println(name + ": расхождений с последовательным вычислением: " + differences);
+        }
+
+        // ConcurrentTabulatedFunction меняется другим потоком правее x = 9, а вычисляется левее:
+        // снимок берется из одного состояния, поэтому значения совпадают с неизменной таблицей
+        ConcurrentTabulatedFunction shared = new ConcurrentTabulatedFunction(0, 10, values);
+        ArrayTabulatedFunction reference = new ArrayTabulatedFunction(0, 10, values);
+        double[] left = new double[xValues.length];
+        for (int i = 0; i < left.length; i++)
+            left[i] = (i * 0.6180339887498949) % 9;
+        double[] expected = new double[left.length];
+        reference.evaluate(left, expected);
+        AtomicBoolean stop = new AtomicBoolean();
+        Thread writer = new Thread(() -> {
+            while (!stop.get()) {
+                shared.addPoint(new FunctionPoint(9.995, 0)); // предпоследняя точка
+                shared.deletePoint(shared.getPointsCount() - 2);
+            }
+        });
+        writer.start();
+        int differences = 0;
+        try {
+            for (int round = 0; round < 20; round++) {
+                ParallelEvaluation.evaluate(shared, left, out, pool);
+                for (int i = 0; i < left.length; i++)
+                    if (Double.doubleToLongBits(out[i]) != Double.doubleToLongBits(expected[i]))
+                        differences++;
+            }
+        } finally {
+            stop.set(true);
+        }
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        System.out.println("ConcurrentTabulatedFunction при одновременных изменениях: расхождений: " + differences);
+        pool.shutdown();
+    }
+
+    // проверка номеров версий и журнала изменений
+    private static void testJournal() {
+        System.out.println("\nПроверка номеров версий и журнала изменений:");
+        ArrayTabulatedFunction func = new ArrayTabulatedFunction(0, 4, new double[]{0, 1, 4, 9, 16});
+        JournaledTabulatedFunction journaled = new JournaledTabulatedFunction(func, 3);
+        long version = journaled.getVersion();
+        journaled.setPointY(1, 2);
+        journaled.addPoint(new FunctionPoint(2.5, 6));
+        System.out.print("Версия " + journaled.getVersion() + ", изменения после версии " + version + ":");
+        for (JournaledTabulatedFunction.Change change : journaled.changesSince(version))
+            System.out.print(" " + change);
+        System.out.println();
+
+        version = journaled.getVersion();
+        System.out.println("Без изменений: " + journaled.changesSince(version).length + " изменений");
+        journaled.deletePoint(0);
+        journaled.setPointY(0, 1);
+        journaled.setPointY(1, 3);
+        journaled.setPointY(2, 5);
+        System.out.println("Журнал на 3 изменения после 4 изменений: " + journaled.changesSince(version));
+        version = journaled.getVersion();
+        func.setPointY(0, 0); // изменение в обход журнала
+        System.out.println("После изменения в обход журнала: " + journaled.changesSince(version));
+
+        // журнал поверх сплайна: версии берутся у исходной таблицы
+        JournaledTabulatedFunction spline = new JournaledTabulatedFunction(
+                new InterpolatedTabulatedFunction(func, InterpolationMethod.CUBIC_SPLINE), 4);
+        version = spline.getVersion();
+        spline.setPointY(2, 4);
+        spline.deletePoint(1);
+        System.out.print("Сплайн: версия " + spline.getVersion() + ", изменения после версии " + version + ":");
+        for (JournaledTabulatedFunction.Change change : spline.changesSince(version))
+            System.out.print(" " + change);
+        System.out.printf(", f(3.5) = %.4f\n", spline.getFunctionValue(3.5));
+
+        ImmutableTabulatedFunction snapshot = func.snapshot();
+        System.out.println("Версия снимка: " + snapshot.getVersion() + ", версия функции: " + func.getVersion());
+    }
+
+    // проверка реестра таблиц с вытеснением и кэшем значений
+    private static void testRegistry() {
+        System.out.println("\nПроверка реестра таблиц:");
+        try {
+            Path directory = Files.createTempDirectory("registry");
+            Path[] files = {directory.resolve("square.tabf"), directory.resolve("line.csv"), directory.resolve("cube.tabf")};
+            try {
+                MappedTabulatedFunction.write(new ArrayTabulatedFunction(0, 4, new double[]{0, 1, 4, 9, 16}), files[0]);
+                TabulatedFunctionText.write(new ArrayTabulatedFunction(0, 4, new double[]{0, 2, 4, 6, 8}), files[1]);
+                MappedTabulatedFunction.write(new ArrayTabulatedFunction(0, 4, new double[]{0, 1, 8, 27, 64}), files[2]);
+
+                FunctionRegistry registry = new FunctionRegistry(directory, 2 * 5 * 16, 1024); // бюджет - 2 таблицы
+                for (int i = 0; i < 3; i++)
+                    System.out.printf("square(2.5) = %.2f\n", registry.get("square").getFunctionValue(2.5));
+                System.out.printf("line(2.5) = %.2f, cube(2.5) = %.2f\n",
+                        registry.get("line").getFunctionValue(2.5), registry.get("cube").getFunctionValue(2.5));
+                System.out.printf("Загружено таблиц: %d, память: %d из %d байт\n",
+                        registry.getTableCount(), registry.getMemoryUsage(), registry.getMemoryBudget());
+
+                TabulatedFunction cube = registry.get("cube");
+                cube.setPointY(2, 10); // значение в кэше устаревает
+                System.out.printf("cube(2.5) после изменения = %.2f\n", cube.getFunctionValue(2.5));
+                registry.get("square"); // cube изменена и не вытесняется
+                registry.save("cube");
+                try (Stream<Path> listing = Files.list(directory)) {
+                    System.out.println("Файлов в каталоге после сохранения (временный заменил cube.tabf): "
+                            + listing.count());
+                }
+                registry.evict("cube"); // следующий get прочитает сохраненный файл
+                System.out.printf("cube(2.5) после сохранения и перезагрузки = %.2f\n",
+                        registry.get("cube").getFunctionValue(2.5));
+                try {
+                    cube.setPointY(2, 0); // прежнее представление cube вытеснено вместе с таблицей
+                } catch (IllegalStateException e) {
+                    System.out.println("Ловим IllegalStateException: " + e.getMessage());
+                }
+                TabulatedFunction square = registry.get("square");
+                registry.get("cube");
+                try {
+                    square.addPoint(new FunctionPoint(2, 5)); // точка с таким x уже есть
+                } catch (InappropriateFunctionPointException e) {
+                    System.out.println("Ловим InappropriateFunctionPointException: " + e.getMessage());
+                }
+                TabulatedFunction line = registry.get("line"); // отклоненное изменение не мешает вытеснить square
+                long loads = registry.getLoads();
+                registry.get("cube");
+                System.out.println("После загрузки line вытеснена square, cube в реестре: " + (registry.getLoads() == loads));
+                line.getFunctionValue(2.5); // чтение через представление - тоже обращение к line
+                registry.get("square");
+                loads = registry.getLoads();
+                registry.get("line");
+                System.out.println("После загрузки square вытеснена cube, line в реестре: " + (registry.getLoads() == loads));
+                for (int i = 5; i < 10; i++)
+                    line.addPoint(new FunctionPoint(i, 2 * i)); // line растет и вытесняет другие таблицы
+                System.out.printf("После роста line: загружено таблиц: %d, память: %d из %d байт\n",
+                        registry.getTableCount(), registry.getMemoryUsage(), registry.getMemoryBudget());
+                System.out.printf("Обращений: %d, загрузок: %d, вытеснений: %d, значений из кэша: %d, вычислено: %d\n",
+                        registry.getHits(), registry.getLoads(), registry.getEvictions(),
+                        registry.getMemoHits(), registry.getMemoMisses());
+                try {
+                    registry.get("missing");
+                } catch (IOException e) {
+                    System.out.println("Ловим IOException: " + e.getMessage().replace(directory.toString(), "<каталог>"));
+                }
+
+                // одновременные промахи: каждая таблица загружается один раз, разные - параллельно
+                FunctionRegistry shared = new FunctionRegistry(directory, 1 << 20, 0);
+                String[] names = {"square", "line", "cube"};
+                Thread[] threads = new Thread[6];
+                AtomicBoolean failed = new AtomicBoolean();
+                for (int t = 0; t < threads.length; t++) {
+                    String name = names[t % names.length];
+                    threads[t] = new Thread(() -> {
+                        try {
+                            shared.get(name).getFunctionValue(1);
+                        } catch (IOException e) {
+                            failed.set(true);
+                        }
+                    });
+                    threads[t].start();
+                }
+                for (Thread thread : threads) {
+                    try {
+                        thread.join();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                System.out.println("Одновременные обращения из " + threads.length + " потоков: загрузок "
+                        + shared.getLoads() + ", ошибок: " + failed.get());
+            } finally {
+                for (Path file : files)
+                    Files.deleteIfExists(file);
+                Files.delete(directory);
+            }
+        } catch (IOException e) {
+            System.out.println("Ошибка ввода-вывода: " + e.getMessage());
+        }
+    }
+
+    // проверка компактного и сжатого хранения таблиц
+    private static void testCompression() {
+        System.out.println("\nПроверка компактного и сжатого хранения:");
+        double[] values = new double[1000];
+        for (int i = 0; i < values.length; i++)
+            values[i] = Math.round(Math.sin(i * 0.01) * 100) / 100.0; // гладкие данные с 2 знаками
+        ArrayTabulatedFunction func = new ArrayTabulatedFunction(0, 10, values);
+        CompressedTabulatedFunction compressed = new CompressedTabulatedFunction(func);
+        System.out.printf("Компактный режим: %b, f(5.005) = %.4f, сжатая: %.4f\n",
+                func.isCompact(), func.getFunctionValue(5.005), compressed.getFunctionValue(5.005));
+        System.out.printf("Размер Y: %d байт, сжатые данные: %d байт\n",
+                values.length * 8, compressed.getEncodedSize());
+
+        func.setPointX(500, 5.001); // сетка перестает быть равномерной
+        System.out.printf("После setPointX: компактный режим: %b, f(5.005) = %.4f\n",
+                func.isCompact(), func.getFunctionValue(5.005));
+        CompressedTabulatedFunction irregular = new CompressedTabulatedFunction(func);
+        System.out.printf("Неравномерная сетка сжата без потерь: %b\n",
+                irregular.getPointX(500) == 5.001 && irregular.getFunctionValue(5.005) == func.getFunctionValue(5.005));
+        try {
+            compressed.setPointY(0, 1);
+        } catch (UnsupportedOperationException e) {
+            System.out.println("Ловим UnsupportedOperationException: " + e.getMessage());
+        }
+        try {
+            new CompressedTabulatedFunction(new RingBufferTabulatedFunction(4)); // окно без точек
+        } catch (IllegalArgumentException e) {
+            System.out.println("Ловим IllegalArgumentException при сжатии пустой функции: " + e.getMessage());
+        }
+    }
+
+    // проверка скользящего окна временного ряда
+    private static void testRingBuffer() {
+        System.out.println("\nПроверка RingBufferTabulatedFunction:");
+        RingBufferTabulatedFunction series = new RingBufferTabulatedFunction(4);
+        series.setMaxPoints(6);
+        series.setHorizon(4);
+        try {
+            for (int t = 0; t < 10; t++)
+                series.append(t, t * t);
+            series.append(8.5, 0);
+        } catch (InappropriateFunctionPointException e) {
+            System.out.println("Ловим InappropriateFunctionPointException: " + e.getMessage());
+        }
+        System.out.print("Окно:");
+        series.forEachPoint((x, y) -> System.out.printf(" (%.1f, %.1f)", x, y));
+        System.out.printf("\nf(7.5) = %.2f, f(4) = %s, емкость: %d\n",
+                series.getFunctionValue(7.5), series.getFunctionValue(4), series.getCapacity());
+
+        try {
+            series.addPoint(new FunctionPoint(6.5, 42));
+            series.deletePoint(0);
+        } catch (InappropriateFunctionPointException e) {
+            System.out.println("Ошибка: " + e.getMessage());
+        }
+        System.out.print("После вставки и удаления:");
+        series.forEachPoint((x, y) -> System.out.printf(" (%.1f, %.1f)", x, y));
+        System.out.printf("\nУдалено точек левее 8: %d, осталось: %d\n",
+                series.evictBefore(8), series.getPointsCount());
+        InterpolatedTabulatedFunction spline = new InterpolatedTabulatedFunction(series, InterpolationMethod.CUBIC_SPLINE);
+        System.out.printf("Сплайн по окну: f(8.75) = %.4f\n", spline.getFunctionValue(8.75));
+        series.evictFirst(series.getPointsCount() - 1); // в окне остается одна точка
+        System.out.println("f(9) при одной точке: " + series.getFunctionValue(9)
+                + ", сплайн: " + spline.getFunctionValue(9) + ", производная сплайна: " + spline.derivative(9));
+        try {
+            series.integrate(8, 9);
+        } catch (IllegalStateException e) {
+            System.out.println("Ловим IllegalStateException: " + e.getMessage());
+        }
+        try {
+            series.evictFirst(2);
+        } catch (IllegalArgumentException e) {
+            System.out.println("Ловим IllegalArgumentException: " + e.getMessage());
+        }
+    }
+
+    // проверка прореживания и адаптивного табулирования
+    private static void testResampling() {
+        System.out.println("\nПроверка прореживания и адаптивного табулирования:");
+        double[] values = new double[1001];
+        for (int i = 0; i < values.length; i++)
+            values[i] = Math.abs(i - 500) / 100.0; // ломаная |x - 5| на 1001 точке
+        ArrayTabulatedFunction dense = new ArrayTabulatedFunction(0, 10, values);
+        ArrayTabulatedFunction simple = Resampling.simplify(dense, 1e-9);
+        System.out.print("Из " + dense.getPointsCount() + " точек осталось " + simple.getPointsCount() + ":");
+        for (int i = 0; i < simple.getPointsCount(); i++)
+            System.out.printf(" (%.2f, %.2f)", simple.getPointX(i), simple.getPointY(i));
+        System.out.println();
+
+        ArrayTabulatedFunction gap = Resampling.simplify(
+                new ArrayTabulatedFunction(0, 4, new double[]{0, Double.NaN, 2, 3, 4}), 1e-9);
+        printPoints("Прореживание с NaN (точка и соседи сохраняются)", gap);
+
+        ArrayTabulatedFunction sampled = Resampling.sample(x -> x * x, 0, 1, 1e-3);
+        System.out.printf("x^2 на [0, 1] с погрешностью 1e-3: %d точек, f(0.3) = %.4f\n",
+                sampled.getPointsCount(), sampled.getFunctionValue(0.3));
+    }
+
+    // проверка ленивых выражений над функциями
+    private static void testExpression() {
+        System.out.println("\nПроверка выражений над функциями:");
+        TabulatedFunction f = new ArrayTabulatedFunction(0, 4, new double[]{0, 1, 4, 9, 16});
+        TabulatedFunction g = new LinkedListTabulatedFunction(0, 4, new double[]{4, 3, 2, 1, 0});
+        FunctionExpression sum = FunctionExpression.of(f).scale(2).plus(g);              // 2f + g
+        FunctionExpression composition = FunctionExpression.of(f).compose(g);            // f(g(x))
+        FunctionExpression maximum = FunctionExpression.of(f).max(g);                    // max(f, g)
+        for (double x = 0; x <= 4; x += 1)
+            System.out.printf("x = %.1f: 2f+g = %.2f, f(g(x)) = %.2f, max(f, g) = %.2f\n",
+                    x, sum.value(x), composition.value(x), maximum.value(x));
+
+        ArrayTabulatedFunction table = sum.times(maximum).materialize(0, 4, 9);
+        System.out.print("(2f+g)*max(f, g) на сетке из 9 точек:");
+        for (int i = 0; i < table.getPointsCount(); i++)
+            System.out.printf(" %.2f", table.getPointY(i));
+        System.out.println();
+    }
+
+    // проверка функции с точками вне кучи и явного освобождения памяти
+    private static void testOffHeap() {
+        System.out.println("\nПроверка OffHeapTabulatedFunction:");
+        OffHeapTabulatedFunction func = new OffHeapTabulatedFunction(0, 4, new double[]{0, 1, 4, 9, 16});
+        try {
+            func.addPoint(new FunctionPoint(2.5, 6.25));
+            func.deletePoint(0);
+            func.setPointY(0, 2);
+            System.out.print("Точки:");
+            for (int i = 0; i < func.getPointsCount(); i++)
+                System.out.printf(" (%.2f, %.2f)", func.getPointX(i), func.getPointY(i));
+            System.out.printf("\nf(2.25) = %.4f, емкость: %d\n", func.getFunctionValue(2.25), func.getCapacity());
+        } finally {
+            func.close();
+        }
+        try {
+            func.getFunctionValue(1);
+        } catch (IllegalStateException e) {
+            System.out.println("Ловим IllegalStateException после close: " + e.getMessage());
+        }
+
+        // курсор, полученный до close, тоже не читает освобожденную память
+        OffHeapTabulatedFunction closing = new OffHeapTabulatedFunction(0, 1, new double[]{0, 1});
+        PointCursor cursor = closing.cursor();
+        cursor.next();
+        closing.close();
+        try {
+            cursor.getX();
+        } catch (IllegalStateException e) {
+            System.out.println("Ловим IllegalStateException в курсоре после close: " + e.getMessage());
+        }
+
+        // копия проверяет точки, как ConcurrentTabulatedFunction, и узнает равномерную сетку
+        try {
+            new OffHeapTabulatedFunction(new RingBufferTabulatedFunction(4)); // окно без точек
+        } catch (IllegalArgumentException e) {
+            System.out.println("Ловим IllegalArgumentException при копировании пустой функции: " + e.getMessage());
+        }
+        ArrayTabulatedFunction grid = new ArrayTabulatedFunction(0, 10, 1001);
+        for (int i = 0; i < grid.getPointsCount(); i++)
+            grid.setPointY(i, Math.sin(i * 0.01));
+        try (OffHeapTabulatedFunction copy = new OffHeapTabulatedFunction(grid)) {
+            int differences = 0;
+            for (int i = 0; i <= 2000; i++) {
+                double x = -0.5 + i * 0.0055;
+                if (Double.doubleToLongBits(copy.getFunctionValue(x)) != Double.doubleToLongBits(grid.getFunctionValue(x)))
+                    differences++;
+            }
+            System.out.println("Копия равномерной сетки: расхождений с исходной функцией: " + differences);
+        }
+    }
+
+    // проверка сбора статистики и ее публикации через JMX
+    private static void testInstrumentation() {
+        System.out.println("\nПроверка сбора статистики:");
+        TabulatedFunction plain = new ArrayTabulatedFunction(0, 4, new double[]{0, 1, 4, 9, 16});
+        System.out.println("Без свойства " + InstrumentedTabulatedFunction.ENABLED_PROPERTY
+                + " декоратор не создается: " + (InstrumentedTabulatedFunction.instrument(plain) == plain));
+
+        InstrumentedTabulatedFunction func = new InstrumentedTabulatedFunction(plain);
+        for (int i = 0; i < 1000; i++)
+            func.getFunctionValue(i * 0.005);
+        func.evaluate(new double[]{-1, 0.5, 5}, new double[3]);
+        for (int i = 0; i < 10; i++)
+            func.addPoint(new FunctionPoint(4 + i + 0.5, 0));
+        try {
+            func.addPoint(new FunctionPoint(1, 0));
+        } catch (InappropriateFunctionPointException e) {
+            // учитывается как отклоненное изменение
+        }
+        func.deletePoint(0);
+        func.setPointY(0, 2);
+
+        try {
+            ObjectName name = func.register("main");
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            for (String attribute : new String[]{"Evaluations", "BatchEvaluations", "OutsideDomain", "PointsAdded",
+                    "PointsDeleted", "PointWrites", "Reallocations", "FailedModifications"})
+                System.out.println(attribute + " = " + server.getAttribute(name, attribute));
+            long samples = (Long) server.getAttribute(name, "LatencySamples"); // выборка случайная - около 1000 / 64
+            System.out.println("LatencySamples > 0: " + (samples > 0));
+            InstrumentedTabulatedFunction.unregister(name);
+        } catch (JMException e) {
+            System.out.println("Ошибка JMX: " + e.getMessage());
+        }
+    }
+
+    // проверка записи функции в текстовый файл и чтения обратно
+    private static void testTextFormat() {
+        System.out.println("\nПроверка текстового формата:");
+        try {
+            Path file = Files.createTempFile("function", ".csv");
+            try {
+                TabulatedFunctionText.write(new ArrayTabulatedFunction(0, 4, new double[]{0, 1, 4, 9, 16}), file);
+                TabulatedFunction read = TabulatedFunctionText.readLinkedList(file);
+                System.out.print("Прочитано точек: " + read.getPointsCount() + ":");
+                for (int i = 0; i < read.getPointsCount(); i++)
+                    System.out.printf(" (%.2f, %.2f)", read.getPointX(i), read.getPointY(i));
+                System.out.println();
+
+                Files.write(file, "x;y\n0; 1\n# комментарий\n2\t5e-1\n1.5;3\n".getBytes(StandardCharsets.UTF_8));
+                try {
+                    TabulatedFunctionText.readArray(file);
+                } catch (IOException e) {
+                    System.out.println("Ловим IOException: " + e.getMessage());
+                }
+            } finally {
+                Files.delete(file);
+            }
+        } catch (IOException e) {
+            System.out.println("Ошибка ввода-вывода: " + e.getMessage());
+        }
+    }
+
+    // проверка неизменяемых снимков и публикации новых версий через держатель
+    private static void testSnapshot() {
+        System.out.println("\nПроверка неизменяемых снимков:");
+        TabulatedFunction source = new LinkedListTabulatedFunction(0, 4, new double[]{0, 1, 4, 9, 16});
+        ImmutableTabulatedFunction snapshot = source.snapshot();
+        source.setPointY(2, 100);
+        System.out.println("После изменения исходной функции: снимок f(2) = " + snapshot.getFunctionValue(2)
+                + ", исходная f(2) = " + source.getFunctionValue(2));
+        try {
+            snapshot.addPoint(new FunctionPoint(5, 25));
+        } catch (UnsupportedOperationException e) {
+            System.out.println("Ловим UnsupportedOperationException addPoint: " + e.getMessage());
+        }
+        try {
+            new ImmutableTabulatedFunction(new double[]{0, 2, 1}, new double[]{0, 0, 0});
+        } catch (IllegalArgumentException e) {
+            System.out.println("Ловим IllegalArgumentException: " + e.getMessage());
+        }
+
+        TabulatedFunctionHolder holder = new TabulatedFunctionHolder(snapshot);
+        ImmutableTabulatedFunction before = holder.get();
+        holder.update(f -> {
+            f.addPoint(new FunctionPoint(5, 25));
+            f.setPointY(0, -1);
+        });
+        ImmutableTabulatedFunction after = holder.get();
+        System.out.println("Старая версия: точек " + before.getPointsCount() + ", f(0) = " + before.getFunctionValue(0));
+        System.out.println("Новая версия: точек " + after.getPointsCount() + ", f(0) = " + after.getFunctionValue(0)
+                + ", f(4.5) = " + after.getFunctionValue(4.5));
+        System.out.println("compareAndSet со старой версией: " + holder.compareAndSet(before, source));
+        try {
+            holder.update(f -> f.addPoint(new FunctionPoint(1, 0)));
+        } catch (InappropriateFunctionPointException e) {
+            System.out.println("Ловим InappropriateFunctionPointException, версия не изменилась: " + (holder.get() == after));
+        }
+
+        // номера версий держателя строго растут при любом способе публикации,
+        // в том числе после set() с новой функцией, у которой собственная версия 0
+        long[] versions = new long[6];
+        versions[0] = holder.get().getVersion();
+        holder.update(f -> f.setPointY(1, 2));
+        versions[1] = holder.get().getVersion();
+        holder.update(f -> f.setPointY(1, 3));
+        versions[2] = holder.get().getVersion();
+        holder.set(new ArrayTabulatedFunction(0, 4, 5));
+        versions[3] = holder.get().getVersion();
+        holder.compareAndSet(holder.get(), new ArrayTabulatedFunction(0, 4, 5));
+        versions[4] = holder.get().getVersion();
+        holder.update(f -> f.setPointY(0, 1));
+        versions[5] = holder.get().getVersion();
+        boolean increasing = true;
+        System.out.print("Версии держателя:");
+        for (int i = 0; i < versions.length; i++) {
+            System.out.print(" " + versions[i]);
+            if (i > 0 && versions[i] <= versions[i - 1])
+                increasing = false;
+        }
+        System.out.println(", строго растут: " + increasing);
+    }
+
+    // сравнение способов интерполяции на точках y = x^2 и изменение точки через декоратор
+    private static void testInterpolation() {
+        System.out.println("\nПроверка способов интерполяции:");
+        for (InterpolationMethod method : InterpolationMethod.values()) {
+            InterpolatedTabulatedFunction func = new InterpolatedTabulatedFunction(
+                    new ArrayTabulatedFunction(0, 4, new double[]{0, 1, 4, 9, 16}), method);
+            System.out.print(method + ":");
+            for (double x = 0; x <= 4; x += 0.5)
+                System.out.printf(" %.4f", func.getFunctionValue(x));
+            func.setPointY(2, 5); // коэффициенты обновляются без пересоздания функции
+            System.out.printf("\n  после setPointY(2, 5): f(1.5) = %.4f, f(2.5) = %.4f\n",
+                    func.getFunctionValue(1.5), func.getFunctionValue(2.5));
+            System.out.printf("  интеграл от 0 до 4: %.4f, производная в 1.5: %.4f\n",
+                    func.integrate(0, 4), func.derivative(1.5));
+        }
+    }
+
+    // проверка записи функции в двоичный файл и чтения через отображение в память
+    private static void testMappedFile() {
+        System.out.println("\nПроверка MappedTabulatedFunction:");
+        try {
+            Path file = Files.createTempFile("function", ".tab");
+            try {
+                TabulatedFunction source = new ArrayTabulatedFunction(0, 4, new double[]{0, 1, 4, 9, 16});
+                MappedTabulatedFunction.write(source, file);
+                TabulatedFunction mapped = new MappedTabulatedFunction(file);
+                System.out.println("Размер файла: " + Files.size(file) + " байт, точек: " + mapped.getPointsCount());
+                for (double x = 0; x <= 4; x += 0.5)
+                    System.out.printf("f(%.1f) = %s (исходная: %s)\n", x, mapped.getFunctionValue(x), source.getFunctionValue(x));
+                try {
+                    mapped.setPointY(0, 1);
+                } catch (UnsupportedOperationException e) {
+                    System.out.println("Ловим UnsupportedOperationException setPointY: " + e.getMessage());
+                }
+            } finally {
+                Files.delete(file);
+            }
+        } catch (IOException e) {
+            System.out.println("Ошибка ввода-вывода: " + e.getMessage());
+        }
+    }
+
+    // нагрузочная проверка ConcurrentTabulatedFunction: писатель меняет набор точек,
+    // сохраняя y = 2x во всех точках, а читатели одновременно вычисляют значения;
+    // увидев разорванный или неупорядоченный набор точек, читатель получил бы y != 2x
+    private static void testConcurrentAccess() {
+        System.out.println("\nПроверка многопоточного доступа:");
+        final ConcurrentTabulatedFunction func = new ConcurrentTabulatedFunction(0, 100, 101);
+        for (int i = 0; i < func.getPointsCount(); i++)
+            func.setPointY(i, 2 * func.getPointX(i));
+
+        stopReaders = false;
+        final int[] errors = new int[4];
+        Thread[] readers = new Thread[errors.length];
+        for (int t = 0; t < readers.length; t++) {
+            final int id = t;
+            readers[t] = new Thread(() -> {
+                double[] xs = new double[64];
+                double[] out = new double[xs.length];
+                while (!stopReaders) {
+                    double left = func.getLeftDomainBorder();
+                    double right = func.getRightDomainBorder();
+                    for (int i = 0; i < xs.length; i++)
+                        xs[i] = left + (right - left) * i / (xs.length - 1);
+                    func.evaluate(xs, out);
+                    for (int i = 0; i < xs.length; i++)
+                        if (!Double.isNaN(out[i]) && Math.abs(out[i] - 2 * xs[i]) > 1e-9)
+                            errors[id]++;
+                    for (int i = 0; i < 100; i++) { // точек всегда не меньше 100
+                        FunctionPoint p = func.getPoint(i);
+                        if (Math.abs(p.getY() - 2 * p.getX()) > 1e-9)
+                            errors[id]++;
+                    }
+                }
+            });
+            readers[t].start();
+        }
+
+        for (int k = 0; k < 200000; k++) {
+            double x = 1 + (k * 7919 % 9800) / 100.0 + 0.005;
+            try {
+                func.addPoint(new FunctionPoint(x, 2 * x));
+            } catch (InappropriateFunctionPointException e) {
+                // такой X уже есть
+            }
+            if (func.getPointsCount() > 150)
+                func.deletePoint(1 + k % (func.getPointsCount() - 2));
+            int i = 1 + k % (func.getPointsCount() - 2);
+            double newX = (func.getPointX(i - 1) + func.getPointX(i + 1)) / 2;
+            func.setPoint(i, new FunctionPoint(newX, 2 * newX));
+        }
+
+        stopReaders = true;
+        int total = 0;
+        for (int t = 0; t < readers.length; t++) {
+            try {
+                readers[t].join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            total += errors[t];
+        }
+        System.out.println("Ошибок согласованности у читателей: " + total);
+
+        // копия функции проверяется так же, как остальные конструкторы
+        RingBufferTabulatedFunction window = new RingBufferTabulatedFunction(0, 1, new double[]{0, 1});
+        window.evictFirst(1);
+        try {
+            new ConcurrentTabulatedFunction(window);
+        } catch (IllegalArgumentException e) {
+            System.out.println("Ловим IllegalArgumentException копии из одной точки: " + e.getMessage());
+        }
+        ConcurrentTabulatedFunction uniform = new ConcurrentTabulatedFunction(new ArrayTabulatedFunction(0, 4, 5));
+        uniform.setPointY(2, 4);
+        System.out.println("f(2.5) = " + uniform.getFunctionValue(2.5) + ", снимок f(2.5) = " + uniform.snapshot().getFunctionValue(2.5));
+    }
+
+    // проверка пакетного добавления точек и управления емкостью ArrayTabulatedFunction
+    private static void testBulkAdd() {
+        System.out.println("\nПроверка пакетного добавления точек:");
+        ArrayTabulatedFunction func = new ArrayTabulatedFunction(0, 4, new double[]{0, 1, 4, 9, 16});
+        func.addPoints(new FunctionPoint[]{ // точки не упорядочены по X
+                new FunctionPoint(3.5, 12.25), new FunctionPoint(-1, 1), new FunctionPoint(0.5, 0.25)});
+        printPoints("Равномерная таблица после addPoints", func);
+        System.out.printf("f(3.75) = %.4f\n", func.getFunctionValue(3.75));
+
+        ImmutableTabulatedFunction before = func.snapshot();
+        try {
+            func.addPoints(new FunctionPoint[]{new FunctionPoint(5, 25), new FunctionPoint(2, 100)}); // 2 уже есть
+        } catch (InappropriateFunctionPointException e) {
+            System.out.println("Ловим InappropriateFunctionPointException: " + e.getMessage());
+        }
+        try {
+            func.addPoints(new FunctionPoint[]{new FunctionPoint(6, 36), new FunctionPoint(6, 37)}); // дубликат внутри набора
+        } catch (InappropriateFunctionPointException e) {
+            System.out.println("Ловим InappropriateFunctionPointException: " + e.getMessage());
+        }
+        boolean unchanged = func.getPointsCount() == before.getPointsCount();
+        for (int i = 0; unchanged && i < before.getPointsCount(); i++)
+            unchanged = func.getPointX(i) == before.getPointX(i) && func.getPointY(i) == before.getPointY(i);
+        System.out.println("Таблица не изменилась: " + unchanged);
+        ArrayTabulatedFunction compact = new ArrayTabulatedFunction(0, 4, new double[]{0, 1, 4, 9, 16});
+        try {
+            compact.addPoints(new FunctionPoint[]{new FunctionPoint(0.5, 0.25), new FunctionPoint(3, 1)}); // 3 уже есть
+        } catch (InappropriateFunctionPointException e) {
+            System.out.println("Компактная таблица после отклоненного набора остается компактной: " + compact.isCompact());
+        }
+
+        func.addAll(new LinkedListTabulatedFunction(4.5, 5.5, new double[]{20.25, 25, 30.25}));
+        printPoints("После addAll", func);
+
+        ArrayTabulatedFunction sized = new ArrayTabulatedFunction(0, 1, 2);
+        sized.ensureCapacity(100);
+        System.out.print("Емкость после ensureCapacity(100): " + sized.getCapacity());
+        for (int i = 1; i <= 10; i++)
+            sized.addPoint(new FunctionPoint(1 + i * 0.1, i));
+        System.out.print(", после добавления 10 точек: " + sized.getCapacity());
+        sized.trimToSize();
+        System.out.println(", после trimToSize: " + sized.getCapacity() + " (точек: " + sized.getPointsCount() + ")");
+        System.out.printf("f(1.55) после trimToSize = %.4f\n", sized.getFunctionValue(1.55));
+    }
+
+    // проверка кэша наклонов: после изменения точек значения совпадают с таблицей без кэша
+    private static void testSlopeCache() {
+        System.out.println("\nПроверка кэша наклонов:");
+        double[] values = new double[50];
+        for (int i = 0; i < values.length; i++)
+            values[i] = Math.sqrt(i) * 3;
+        ArrayTabulatedFunction cached = new ArrayTabulatedFunction(0, 7, values);
+        ArrayTabulatedFunction plain = new ArrayTabulatedFunction(0, 7, values);
+        cached.setSlopeCacheEnabled(true);
+        System.out.println("Кэш включен: " + cached.isSlopeCacheEnabled()
+                + ", отклонение от таблицы без кэша: " + slopeDeviation(cached, plain));
+        try {
+            cached.setPointY(10, -5); // наклоны отрезков 9 и 10 уже вычислены и должны сброситься
+            plain.setPointY(10, -5);
+            System.out.println("После setPointY: " + slopeDeviation(cached, plain));
+            cached.addPoint(new FunctionPoint(3.05, 40)); // отрезок делится на два, правые сдвигаются
+            plain.addPoint(new FunctionPoint(3.05, 40));
+            System.out.println("После addPoint: " + slopeDeviation(cached, plain));
+            cached.deletePoint(25); // соседние отрезки сливаются
+            plain.deletePoint(25);
+            System.out.println("После deletePoint: " + slopeDeviation(cached, plain));
+        } catch (InappropriateFunctionPointException e) {
+            System.out.println("Ошибка: " + e.getMessage());
+        }
+    }
+
+    // одновременные getFunctionValue и evaluate без изменений не трогают кэш индекса
+    // списка: после них getPointX по всем индексам возвращает правильные точки
+    private static void testListConcurrentReads() {
+        System.out.println("\nПроверка одновременного чтения LinkedListTabulatedFunction:");
+        final LinkedListTabulatedFunction list = new LinkedListTabulatedFunction(0, 1999, 2000);
+        list.getPointX(1000); // кэш индекса указывает на середину списка
+        Thread[] readers = new Thread[4];
+        for (int t = 0; t < readers.length; t++) {
+            final int id = t;
+            readers[t] = new Thread(() -> {
+                double[] xs = new double[64];
+                double[] out = new double[xs.length];
+                long end = System.nanoTime() + 1_000_000_000L; // секунда чтения
+                for (int round = 0; System.nanoTime() < end; round++) {
+                    double x = (round * 7919 + id * 131) % 1999 + 0.5;
+                    list.getFunctionValue(x);
+                    for (int i = 0; i < xs.length; i++)
+                        xs[i] = (x + i * 31) % 1999;
+                    list.evaluate(xs, out);
+                }
+            });
+            readers[t].start();
+        }
+        for (Thread reader : readers) {
+            try {
+                reader.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        int wrong = 0;
+        for (int i = 0; i < list.getPointsCount(); i += 7)
+            if (list.getPointX(i) != i)
+                wrong++;
+        System.out.println("Неверных точек после одновременного чтения: " + wrong);
+    }
+
+    // проверка пакетного вычисления на равномерной сетке: x в случайном порядке, в том числе
+    // в узлах, в пределах EPS от узлов, на границах, вне области и NaN, совпадают
+    // с getFunctionValue побитово
+    private static void testUniformEvaluation() {
+        System.out.println("\nПроверка пакетного вычисления на равномерной сетке:");
+        double[] values = new double[1000];
+        for (int i = 0; i < values.length; i++)
+            values[i] = Math.cos(i * 0.01);
+        TabulatedFunction[] functions = {
+                new ArrayTabulatedFunction(-3, 7, values),
+                new ConcurrentTabulatedFunction(-3, 7, values),
+                new ArrayTabulatedFunction(-3, 7, values).snapshot(),
+                new OffHeapTabulatedFunction(-3, 7, values)
+        };
+        double eps = Math.ulp(1.0);
+        double[] xValues = new double[4000];
+        for (int i = 0; i < xValues.length; i++) {
+            int node = i * 7919 % values.length; // узлы вразброс
+            double nodeX = -3 + node * 10.0 / (values.length - 1);
+            switch (i % 5) {
+                case 0: xValues[i] = nodeX; break;
+                case 1: xValues[i] = nodeX + (i % 3 - 1) * eps / 2; break;
+                case 2: xValues[i] = i % 2 == 0 ? -3 - eps / 2 : 7 + eps / 2; break;
+                case 3: xValues[i] = i % 2 == 0 ? Double.NaN : -3.5 + (i * 0.6180339887498949) % 11; break;
+                default: xValues[i] = -3 + (i * 0.6180339887498949) % 10;
+            }
+        }
+        double[] out = new double[xValues.length];
+        for (TabulatedFunction func : functions) {
+            func.evaluate(xValues, out);
+            int differences = 0;
+            for (int i = 0; i < xValues.length; i++)
+                if (Double.doubleToLongBits(out[i]) != Double.doubleToLongBits(func.getFunctionValue(xValues[i])))
+                    differences++;
+            System.out.println(func.getClass().getSimpleName() + ": расхождений с getFunctionValue: " + differences);
+            if (func instanceof OffHeapTabulatedFunction)
+                ((OffHeapTabulatedFunction) func).close();
+        }
+    }
+
+    // наибольшее отклонение значений cached от plain на частой сетке (заодно заполняет кэш наклонов)
+    private static String slopeDeviation(TabulatedFunction cached, TabulatedFunction plain) {
+        double max = 0;
+        for (double x = 0; x <= 7; x += 0.001)
+            max = Math.max(max, Math.abs(cached.getFunctionValue(x) - plain.getFunctionValue(x)));
+        return max < 1e-12 ? "меньше 1e-12" : String.valueOf(max);
+    }
+
+    // вывод всех точек функции в одну строку
+    private static void printPoints(String title, TabulatedFunction func) {
+        System.out.print(title + ":");
+        for (int i = 0; i < func.getPointsCount(); i++)
+            System.out.printf(" (%.2f, %.2f)", func.getPointX(i), func.getPointY(i));
+        System.out.println();
+    }
+
     private static void testFunction(TabulatedFunction func) {
         System.out.println("Тип функции: " + func.getClass().getSimpleName());
         System.out.println();
@@ -180,6 +1024,23 @@ public class Main {
             System.out.printf("Точка %d: (%.2f, %.2f)\n", i, p.getX(), p.getY());
         }
 
+        // 12. Обход точек без создания объектов
+        System.out.println("\nОбходим точки курсором:");
+        PointCursor cursor = func.cursor();
+        while (cursor.next())
+            System.out.printf("(%.2f, %.2f) ", cursor.getX(), cursor.getY());
+        final double[] sum = {0};
+        func.forEachPoint((x, y) -> sum[0] += y);
+        System.out.printf("\nСумма Y через forEachPoint: %.2f\n", sum[0]);
+
+        // 13. Интеграл и производная
+        System.out.println("\nИнтегралы и производные:");
+        double left = func.getLeftDomainBorder(), right = func.getRightDomainBorder();
+        System.out.printf("Интеграл по всей области: %.4f\n", func.integrate(left, right));
+        System.out.printf("Интеграл от 0.5 до 3.5: %.4f, от 3.5 до 0.5: %.4f\n", func.integrate(0.5, 3.5), func.integrate(3.5, 0.5));
+        System.out.printf("Производная в 0.5: %.4f, в 3.5: %.4f\n", func.derivative(0.5), func.derivative(3.5));
+        System.out.println("Интеграл за границей: " + func.integrate(left - 1, right) + ", производная: " + func.derivative(right + 1));
+
         System.out.println("\nПроверка " + func.getClass().getSimpleName() + " завершена успешно!\n");
     }
 }
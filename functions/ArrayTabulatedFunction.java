@@ -1,14 +1,26 @@
 package functions;
 
 public class ArrayTabulatedFunction implements TabulatedFunction {
-    private FunctionPoint[] points;      // массив точек функции
+    // точки хранятся в двух параллельных массивах примитивов: без отдельного объекта на точку,
+    // объекты FunctionPoint создаются только на границе API (getPoint)
+    //
+    // компактный режим: пока сетка равномерна и построена конструктором по границам,
+    // абсциссы не хранятся, а вычисляются как left + i * step (xs == null); массив X
+    // создается при первом изменении, нарушающем равномерность сетки
+    private double[] xs;                 // абсциссы точек функции (по возрастанию) или null в компактном режиме
+    private double left;                 // левая граница равномерной сетки в компактном режиме
+    private double[] ys;                 // ординаты точек функции
     private int pointsCount;             // текущее количество точек
+    private double step;                 // шаг равномерной сетки по X или 0, если сетка стала неравномерной
+    private double[] slopes;             // кэш наклонов отрезков (NaN - не вычислен) или null, если кэш выключен
+    private PrefixSums areas;            // площади трапеций под отрезками или null, если еще не нужны
+    private long version;                // номер версии точек, растет при каждом изменении
+    private final SegmentSearch.Points grid = new SegmentSearch.Points() { // точки компактного режима для SegmentSearch
+        double x(int i) { return left + i * step; }
+        double y(int i) { return ys[i]; }
+    };
     private static final double EPS = Math.ulp(1.0); // машинный эпсилон для сравнения double
 
-    // кэш последнего обращения
-    private int lastAccessedIndex = -1;      // индекс последней использованной точки
-    private FunctionPoint lastAccessedPoint = null; // последняя использованная точка
-
     // конструктор 1: равномерное распределение точек по X
     public ArrayTabulatedFunction(double leftX, double rightX, int pointsCount) {
         if (leftX >= rightX)
@@ -17,10 +29,9 @@ public class ArrayTabulatedFunction implements TabulatedFunction {
             throw new IllegalArgumentException("Кол-во точек < 2");
 
         this.pointsCount = pointsCount;
-        points = new FunctionPoint[pointsCount];
-        double step = (rightX - leftX) / (pointsCount - 1); // шаг по X между точками
-        for (int i = 0; i < pointsCount; i++)
-            points[i] = new FunctionPoint(leftX + i * step, 0); // создаем точки с Y=0
+        ys = new double[pointsCount]; // Y=0 у всех точек
+        left = leftX;
+        step = (rightX - leftX) / (pointsCount - 1); // шаг по X между точками
     }
 
     // конструктор 2: по массиву Y-значений
@@ -31,39 +42,230 @@ public class ArrayTabulatedFunction implements TabulatedFunction {
             throw new IllegalArgumentException("Кол-во точек < 2");
 
         pointsCount = values.length;
-        points = new FunctionPoint[pointsCount];
-        double step = (rightX - leftX) / (pointsCount - 1); // шаг по X между точками
+        ys = values.clone(); // заданные Y
+        left = leftX;
+        step = (rightX - leftX) / (pointsCount - 1); // шаг по X между точками
+    }
+
+    // создание по готовым массивам без копирования и проверок (точки упорядочены по X);
+    // массивы передаются во владение, step - шаг равномерной сетки или 0
+    ArrayTabulatedFunction(double[] xs, double[] ys, int pointsCount, double step) {
+        this.xs = xs;
+        this.ys = ys;
+        this.pointsCount = pointsCount;
+        this.step = step;
+    }
+
+    // то же с заданным начальным номером версии: копия продолжает нумерацию версий источника
+    ArrayTabulatedFunction(double[] xs, double[] ys, int pointsCount, double step, long version) {
+        this(xs, ys, pointsCount, step);
+        this.version = version;
+    }
+
+    // абсцисса точки index в любом режиме хранения
+    private double x(int index) { return xs != null ? xs[index] : left + index * step; }
+
+    // хранятся ли абсциссы неявно (компактный режим)
+    public boolean isCompact() { return xs == null; }
+
+    // переход к явному хранению абсцисс: массив заполняется теми же значениями,
+    // что вычислялись в компактном режиме
+    private void materializeX() {
+        if (xs != null)
+            return;
+        double[] result = new double[ys.length];
         for (int i = 0; i < pointsCount; i++)
-            points[i] = new FunctionPoint(leftX + i * step, values[i]); // создаем точки с заданными Y
+            result[i] = left + i * step;
+        xs = result;
+    }
+
+    // поиск отрезка, содержащего x, в любом режиме хранения
+    private int locate(double x) {
+        return xs != null ? SegmentSearch.locate(xs, pointsCount, step, x)
+                : SegmentSearch.locate(grid, pointsCount, step, x);
     }
 
     public int getPointsCount() { return pointsCount; } // вернуть текущее количество точек
-    public double getLeftDomainBorder() { return points[0].getX(); } // левая граница области определения
-    public double getRightDomainBorder() { return points[pointsCount - 1].getX(); } // правая граница области определения
+    public long getVersion() { return version; }        // номер версии точек
+    public double getLeftDomainBorder() { return x(0); } // левая граница области определения
+    public double getRightDomainBorder() { return x(pointsCount - 1); } // правая граница области определения
 
-    // получение значения функции в точке x (линейная интерполяция)
+    // получение значения функции в точке x (линейная интерполяция);
+    // пока сетка равномерна, отрезок находится арифметически за O(1)
     public double getFunctionValue(double x) {
+        if (slopes == null)
+            return xs != null ? SegmentSearch.value(xs, ys, pointsCount, step, x)
+                    : SegmentSearch.value(grid, pointsCount, step, x);
+
         if (x < getLeftDomainBorder() - EPS || x > getRightDomainBorder() + EPS)
             return Double.NaN; // x вне области определения
+        return slopeValueAt(locate(x), x);
+    }
 
-        for (int i = 0; i < pointsCount - 1; i++) {
-            if (Math.abs(x - points[i].getX()) < EPS)
-                return points[i].getY(); // если совпадает с точкой, вернуть её Y
-
-            if (x > points[i].getX() - EPS && x < points[i + 1].getX() + EPS) {
-                // линейная интерполяция между соседними точками
-                double x1 = points[i].getX();
-                double x2 = points[i + 1].getX();
-                double y1 = points[i].getY();
-                double y2 = points[i + 1].getY();
-                return y1 + (y2 - y1) * (x - x1) / (x2 - x1);
+    // вычисление значения функции в точках массива xValues с записью результатов в out
+    public void evaluate(double[] xValues, double[] out) {
+        if (slopes == null) {
+            if (xs != null)
+                SegmentSearch.evaluate(xs, ys, pointsCount, step, xValues, out);
+            else
+                SegmentSearch.evaluate(grid, pointsCount, step, xValues, out);
+            return;
+        }
+
+        if (out.length < xValues.length)
+            throw new IllegalArgumentException("массив результатов короче массива x");
+        double leftBound = getLeftDomainBorder() - EPS;
+        double rightBound = getRightDomainBorder() + EPS;
+        int i = 0;                       // отрезок для предыдущего x
+        double prevX = Double.NaN;       // предыдущий x из области определения
+        for (int k = 0; k < xValues.length; k++) {
+            double x = xValues[k];
+            if (x < leftBound || x > rightBound) {
+                out[k] = Double.NaN; // x вне области определения
+                continue;
+            }
+            if (x >= prevX) {
+                int steps = 0;
+                while (i < pointsCount - 1 && x >= x(i + 1) + EPS && steps++ < SegmentSearch.MAX_WALK)
+                    i++;
+                if (i < pointsCount - 1 && x >= x(i + 1) + EPS)
+                    i = locate(x); // отрезок далеко
+            } else {
+                i = locate(x);
             }
+            out[k] = slopeValueAt(i, x);
+            prevX = x;
+        }
+    }
+
+    // кэш наклонов: при включенном кэше значение внутри отрезка вычисляется как
+    // y1 + k * (x - x1) без деления; наклон k отрезка вычисляется при первом обращении
+    // и сбрасывается только у отрезков, затронутых изменением точек
+    //
+    // результат не совпадает побитово с функцией без кэша: обычная формула
+    // y1 + (y2 - y1) * (x - x1) / (x2 - x1) округляет в другом порядке, и на случайных
+    // отрезках примерно каждое пятое значение отличается на единицы ulp (при вычитании
+    // близких y1 и k * (x - x1) около нуля относительная разница больше); узлы и
+    // значения вне области определения совпадают точно. Поэтому ParallelEvaluation
+    // не подменяет такую функцию снимком, который считает по обычной формуле
+    //
+    // наклоны записываются в кэш при чтении (getFunctionValue, evaluate): ячейка меняется
+    // только с NaN на наклон, вычисленный по неизменным точкам, поэтому одновременные
+    // чтения без изменений точек записывают в нее одно и то же значение и безопасны
+    // (запись double атомарна на 64-битных JVM); чтение одновременно с изменением точек,
+    // как и без кэша, не допускается
+    public boolean isSlopeCacheEnabled() { return slopes != null; }
+
+    public void setSlopeCacheEnabled(boolean enabled) {
+        if (!enabled) {
+            slopes = null;
+        } else if (slopes == null) {
+            slopes = newSlopes(ys.length);
+        }
+    }
+
+    // массив наклонов, в котором ни один наклон еще не вычислен
+    private static double[] newSlopes(int capacity) {
+        double[] result = new double[capacity];
+        for (int i = 0; i < capacity; i++)
+            result[i] = Double.NaN;
+        return result;
+    }
+
+    // значение функции в x по отрезку i с использованием кэша наклонов
+    private double slopeValueAt(int i, double x) {
+        double x1 = x(i);
+        if (i == pointsCount - 1 || Math.abs(x - x1) < EPS || x <= x1 - EPS)
+            return xs != null ? SegmentSearch.valueAt(xs, ys, pointsCount, i, x) // края и совпадения с узлами
+                    : SegmentSearch.valueAt(grid, pointsCount, i, x);
+
+        double k = slopes[i];
+        if (k != k) { // наклон не вычислен
+            k = (ys[i + 1] - ys[i]) / (x(i + 1) - x1);
+            slopes[i] = k;
+        }
+        return ys[i] + k * (x - x1);
+    }
+
+    // сброс кэшированных наклонов отрезков, прилегающих к точке index
+    private void invalidateSlopes(int index) {
+        if (slopes == null)
+            return;
+        if (index > 0)
+            slopes[index - 1] = Double.NaN;
+        if (index < pointsCount - 1)
+            slopes[index] = Double.NaN;
+    }
+
+    // неизменяемая копия точек: два копирования массивов
+    public ImmutableTabulatedFunction snapshot() {
+        double[] copyXs = new double[pointsCount];
+        double[] copyYs = new double[pointsCount];
+        for (int i = 0; i < pointsCount; i++)
+            copyXs[i] = x(i);
+        System.arraycopy(ys, 0, copyYs, 0, pointsCount);
+        return new ImmutableTabulatedFunction(copyXs, copyYs, step, version);
+    }
+
+    // интеграл от a до b за O(log n): разность двух первообразных, каждая - сумма площадей
+    // целых отрезков из дерева Фенвика и площадь части одного отрезка; дерево строится
+    // при первом вызове, изменение точки обновляет его за O(log n), добавление и удаление
+    // точки сбрасывают (индексы отрезков сдвигаются)
+    public double integrate(double a, double b) {
+        if (a > b)
+            return -integrate(b, a);
+        if (!(a >= getLeftDomainBorder() - EPS && b <= getRightDomainBorder() + EPS))
+            return Double.NaN; // граница вне области определения
+
+        int i = segment(a);
+        int j = segment(b);
+        if (i == j) // оба конца на одном отрезке
+            return (b - a) * (linearValue(i, a) + linearValue(i, b)) / 2;
+        if (areas == null) {
+            double[] trapezoids = new double[pointsCount - 1];
+            for (int k = 0; k < pointsCount - 1; k++)
+                trapezoids[k] = trapezoid(k);
+            areas = new PrefixSums(trapezoids, pointsCount - 1);
         }
+        return antiderivative(j, b) - antiderivative(i, a);
+    }
+
+    // производная - наклон отрезка, содержащего x, за время поиска отрезка
+    public double derivative(double x) {
+        if (!(x >= getLeftDomainBorder() - EPS && x <= getRightDomainBorder() + EPS))
+            return Double.NaN; // x вне области определения
+        int i = segment(x);
+        return (ys[i + 1] - ys[i]) / (x(i + 1) - x(i));
+    }
+
+    // отрезок, содержащий x из области определения (правый край относится к последнему отрезку)
+    private int segment(double x) {
+        return Math.min(locate(x), pointsCount - 2);
+    }
+
+    // значение на прямой отрезка i в точке x
+    private double linearValue(int i, double x) {
+        return ys[i] + (ys[i + 1] - ys[i]) * (x - x(i)) / (x(i + 1) - x(i));
+    }
 
-        if (Math.abs(x - points[pointsCount - 1].getX()) < EPS)
-            return points[pointsCount - 1].getY(); // если совпадает с последней точкой
+    // площадь трапеции под отрезком i
+    private double trapezoid(int i) {
+        return (x(i + 1) - x(i)) * (ys[i] + ys[i + 1]) / 2;
+    }
+
+    // интеграл от левой границы до x, лежащего на отрезке i
+    private double antiderivative(int i, double x) {
+        return areas.sum(i) + (x - x(i)) * (ys[i] + linearValue(i, x)) / 2;
+    }
 
-        return Double.NaN; // если x не найден
+    // обновление площадей отрезков, прилегающих к точке index
+    private void updateAreas(int index) {
+        if (areas == null)
+            return;
+        if (index > 0)
+            areas.set(index - 1, trapezoid(index - 1));
+        if (index < pointsCount - 1)
+            areas.set(index, trapezoid(index));
     }
 
     // проверка корректности индекса
@@ -72,76 +274,241 @@ public class ArrayTabulatedFunction implements TabulatedFunction {
             throw new FunctionPointIndexOutOfBoundsException("Индекс" + index + "выходит за границы");
     }
 
-    // оптимизированный доступ к точке с использованием кэша
-    private FunctionPoint getCachedPoint(int index) {
-        checkIndex(index);
-        if (index == lastAccessedIndex && lastAccessedPoint != null)
-            return lastAccessedPoint; // вернуть кэшированную точку
-        lastAccessedIndex = index;
-        lastAccessedPoint = points[index]; // обновить кэш
-        return lastAccessedPoint;
+    // проверка, что x лежит строго между соседями точки index
+    private boolean isInOrder(int index, double x) {
+        return (index == 0 || x > x(index - 1)) &&
+                (index == pointsCount - 1 || x < x(index + 1));
+    }
+
+    // обход всех точек по массивам без создания объектов точек
+    public void forEachPoint(DoubleBinaryConsumer action) {
+        for (int i = 0; i < pointsCount; i++)
+            action.accept(x(i), ys[i]);
+    }
+
+    // курсор по индексам массивов
+    public PointCursor cursor() {
+        return new PointCursor() {
+            private int index = -1; // индекс текущей точки
+
+            public boolean next() { return ++index < pointsCount; }
+            public double getX() { return x(index); }
+            public double getY() { return ys[index]; }
+            public void reset() { index = -1; }
+        };
     }
 
     public FunctionPoint getPoint(int index) {
-        return new FunctionPoint(getCachedPoint(index)); // вернуть копию точки
+        checkIndex(index);
+        return new FunctionPoint(x(index), ys[index]); // вернуть копию точки
     }
 
     public void setPoint(int index, FunctionPoint point) throws InappropriateFunctionPointException {
         checkIndex(index);
-        double x = point.getX();
-        if ((index > 0 && x <= points[index - 1].getX()) ||
-                (index < pointsCount - 1 && x >= points[index + 1].getX()))
+        if (!isInOrder(index, point.getX()))
             throw new InappropriateFunctionPointException("X вне порядка"); // проверка порядка X
-        points[index] = new FunctionPoint(point); // заменить точку
-        lastAccessedIndex = index; // обновить кэш
-        lastAccessedPoint = points[index];
+        if (point.getX() != x(index)) {
+            materializeX();
+            step = 0; // сетка больше не равномерна
+            xs[index] = point.getX(); // заменить точку
+        }
+        ys[index] = point.getY();
+        invalidateSlopes(index);
+        updateAreas(index);
+        version++; // новая версия точек
     }
 
-    public double getPointX(int index) { return getCachedPoint(index).getX(); } // получить X точки
-    public double getPointY(int index) { return getCachedPoint(index).getY(); } // получить Y точки
+    public double getPointX(int index) { checkIndex(index); return x(index); } // получить X точки
+    public double getPointY(int index) { checkIndex(index); return ys[index]; } // получить Y точки
 
     public void setPointX(int index, double x) throws InappropriateFunctionPointException {
         checkIndex(index);
-        if ((index > 0 && x <= points[index - 1].getX()) ||
-                (index < pointsCount - 1 && x >= points[index + 1].getX()))
+        if (!isInOrder(index, x))
             throw new InappropriateFunctionPointException("Х вне порядка"); // проверка порядка X
-        points[index].setX(x); // установить новое X
-        lastAccessedIndex = index; // обновить кэш
-        lastAccessedPoint = points[index];
+        if (x != x(index)) {
+            materializeX();
+            step = 0; // сетка больше не равномерна
+            xs[index] = x; // установить новое X
+        }
+        invalidateSlopes(index);
+        updateAreas(index);
+        version++; // новая версия точек
     }
 
     public void setPointY(int index, double y) {
         checkIndex(index);
-        points[index].setY(y); // установить новое Y
-        lastAccessedIndex = index; // обновить кэш
-        lastAccessedPoint = points[index];
+        ys[index] = y; // установить новое Y
+        invalidateSlopes(index);
+        updateAreas(index);
+        version++; // новая версия точек
     }
 
-    // добавление новой точки
-    public void addPoint(FunctionPoint point) throws InappropriateFunctionPointException {
-        for (int i = 0; i < pointsCount; i++)
-            if (Math.abs(points[i].getX() - point.getX()) < EPS)
-                throw new InappropriateFunctionPointException("дубликат Х"); // проверка на дублирование X
+    // емкость массивов - сколько точек помещается без перераспределения памяти
+    public int getCapacity() { return ys.length; }
+
+    // увеличение емкости массивов не менее чем до minCapacity точек
+    public void ensureCapacity(int minCapacity) {
+        if (minCapacity > ys.length)
+            resize(minCapacity);
+    }
+
+    // уменьшение емкости массивов до текущего количества точек
+    public void trimToSize() {
+        if (pointsCount < ys.length)
+            resize(pointsCount);
+    }
+
+    // перенос точек в массивы емкостью capacity
+    private void resize(int capacity) {
+        double[] newYs = new double[capacity];
+        System.arraycopy(ys, 0, newYs, 0, pointsCount);
+        ys = newYs;
+        if (xs != null) {
+            double[] newXs = new double[capacity];
+            System.arraycopy(xs, 0, newXs, 0, pointsCount);
+            xs = newXs;
+        }
+        if (slopes != null) {
+            double[] grown = newSlopes(capacity);
+            System.arraycopy(slopes, 0, grown, 0, Math.max(pointsCount - 1, 0));
+            slopes = grown;
+        }
+    }
+
+    // новая емкость для размещения required точек: рост в полтора раза,
+    // чтобы последовательное добавление точек стоило O(1) копирований в среднем
+    private int grownCapacity(int required) {
+        int capacity = ys.length + (ys.length >> 1) + 1;
+        return capacity < required ? required : capacity;
+    }
 
-        if (pointsCount == points.length) {
-            // расширение массива при необходимости
-            FunctionPoint[] newPoints = new FunctionPoint[pointsCount + 1];
-            System.arraycopy(points, 0, newPoints, 0, pointsCount);
-            points = newPoints;
+    // позиция вставки x: индекс первой точки с X >= x (бинарный поиск)
+    private int insertionIndex(double x) {
+        int lo = 0, hi = pointsCount;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (x(mid) < x)
+                lo = mid + 1;
+            else
+                hi = mid;
         }
+        return lo;
+    }
+
+    // добавление новой точки
+    public void addPoint(FunctionPoint point) throws InappropriateFunctionPointException {
+        double x = point.getX();
+        int index = insertionIndex(x); // найти позицию для вставки
+        // точка с близким X может быть только среди соседей места вставки
+        if ((index > 0 && Math.abs(x(index - 1) - x) < EPS) ||
+                (index < pointsCount && Math.abs(x(index) - x) < EPS))
+            throw new InappropriateFunctionPointException("дубликат Х"); // проверка на дублирование X
 
-        // найти позицию для вставки
-        int index = 0;
-        while (index < pointsCount && points[index].getX() < point.getX())
-            index++;
+        materializeX();
+        if (pointsCount == xs.length)
+            resize(grownCapacity(pointsCount + 1)); // расширение массивов при необходимости
 
         // сдвинуть точки вправо для вставки
-        System.arraycopy(points, index, points, index + 1, pointsCount - index);
-        points[index] = new FunctionPoint(point); // вставить точку
+        System.arraycopy(xs, index, xs, index + 1, pointsCount - index);
+        System.arraycopy(ys, index, ys, index + 1, pointsCount - index);
+        xs[index] = x; // вставить точку
+        ys[index] = point.getY();
+        if (slopes != null) // отрезки правее точки сдвигаются вместе с ней
+            System.arraycopy(slopes, index, slopes, index + 1, pointsCount - index);
         pointsCount++;
+        invalidateSlopes(index); // отрезок, в который попала точка, разделился на два
+        areas = null;
+        step = 0; // сетка больше не равномерна
+        version++; // новая версия точек
+    }
+
+    // добавление набора точек: набор сортируется один раз и сливается с имеющимися
+    // точками за один проход O(n + m); если хотя бы одна точка дублирует X,
+    // выбрасывается исключение и функция не меняется
+    public void addPoints(FunctionPoint[] points) throws InappropriateFunctionPointException {
+        int count = points.length;
+        double[] newXs = new double[count];
+        double[] newYs = new double[count];
+        for (int i = 0; i < count; i++) {
+            newXs[i] = points[i].getX();
+            newYs[i] = points[i].getY();
+        }
+        sortByX(newXs, newYs, count);
+        merge(newXs, newYs, count);
+    }
+
+    // добавление всех точек другой табулированной функции (они уже упорядочены по X)
+    public void addAll(TabulatedFunction function) throws InappropriateFunctionPointException {
+        int count = function.getPointsCount();
+        double[] newXs = new double[count];
+        double[] newYs = new double[count];
+        for (int i = 0; i < count; i++) {
+            newXs[i] = function.getPointX(i);
+            newYs[i] = function.getPointY(i);
+        }
+        merge(newXs, newYs, count);
+    }
+
+    // слияние упорядоченного набора новых точек с имеющимися в новые массивы;
+    // дубликаты проверяются между соседями в общем порядке, если хотя бы один из них новый
+    private void merge(double[] newXs, double[] newYs, int count) throws InappropriateFunctionPointException {
+        if (count == 0)
+            return; // добавлять нечего
+        // X читаются через x(i): компактная таблица получит явные X только вместе с результатом,
+        // поэтому отклоненный набор оставляет ее в прежнем режиме
+        int total = pointsCount + count;
+        int capacity = total > ys.length ? grownCapacity(total) : ys.length;
+        double[] mergedXs = new double[capacity];
+        double[] mergedYs = new double[capacity];
+
+        int i = 0, j = 0, k = 0;
+        boolean lastIsNew = false; // последняя записанная точка - из нового набора
+        while (i < pointsCount || j < count) {
+            boolean takeNew = i == pointsCount || (j < count && newXs[j] < x(i));
+            double x = takeNew ? newXs[j] : x(i);
+            if (k > 0 && (takeNew || lastIsNew) && Math.abs(x - mergedXs[k - 1]) < EPS)
+                throw new InappropriateFunctionPointException("дубликат Х"); // проверка на дублирование X
+            mergedXs[k] = x;
+            mergedYs[k++] = takeNew ? newYs[j++] : ys[i++];
+            lastIsNew = takeNew;
+        }
+
+        xs = mergedXs;
+        ys = mergedYs;
+        pointsCount = total;
+        if (slopes != null)
+            slopes = newSlopes(capacity); // точки добавлены по всей сетке
+        areas = null;
+        step = 0; // сетка больше не равномерна
+        version++; // новая версия точек
+    }
 
-        lastAccessedIndex = index; // обновить кэш
-        lastAccessedPoint = points[index];
+    // сортировка первых count точек по X (восходящее слияние, O(m log m))
+    private static void sortByX(double[] xs, double[] ys, int count) {
+        double[] srcX = xs, srcY = ys;
+        double[] dstX = new double[count], dstY = new double[count];
+        for (int width = 1; width < count; width <<= 1) {
+            for (int lo = 0; lo < count; lo += width << 1) {
+                int mid = Math.min(lo + width, count);
+                int hi = Math.min(lo + (width << 1), count);
+                int i = lo, j = mid, k = lo;
+                while (i < mid || j < hi) {
+                    if (j == hi || (i < mid && srcX[i] <= srcX[j])) {
+                        dstX[k] = srcX[i];
+                        dstY[k++] = srcY[i++];
+                    } else {
+                        dstX[k] = srcX[j];
+                        dstY[k++] = srcY[j++];
+                    }
+                }
+            }
+            double[] t = srcX; srcX = dstX; dstX = t;
+            t = srcY; srcY = dstY; dstY = t;
+        }
+        if (srcX != xs) { // результат оказался во вспомогательных массивах
+            System.arraycopy(srcX, 0, xs, 0, count);
+            System.arraycopy(srcY, 0, ys, 0, count);
+        }
     }
 
     // удаление точки
@@ -150,11 +517,21 @@ public class ArrayTabulatedFunction implements TabulatedFunction {
         if (pointsCount <= 2)
             throw new IllegalStateException("удаление невозможно: кол-во точек < 3"); // минимальное количество точек
 
+        if (index != pointsCount - 1)
+            materializeX(); // без последней точки сетка остается прежней, иначе X сдвигаются
         // сдвинуть оставшиеся точки влево
-        System.arraycopy(points, index + 1, points, index, pointsCount - index - 1);
+        if (xs != null)
+            System.arraycopy(xs, index + 1, xs, index, pointsCount - index - 1);
+        System.arraycopy(ys, index + 1, ys, index, pointsCount - index - 1);
+        if (slopes != null) {
+            System.arraycopy(slopes, index + 1, slopes, index, pointsCount - index - 1);
+            if (index > 0)
+                slopes[index - 1] = Double.NaN; // соседние отрезки слились в один
+        }
+        if (index != 0 && index != pointsCount - 1)
+            step = 0; // удаление крайней точки сохраняет равномерность сетки
         pointsCount--;
-
-        lastAccessedIndex = -1; // сброс кэша
-        lastAccessedPoint = null;
+        areas = null;
+        version++; // новая версия точек
     }
 }
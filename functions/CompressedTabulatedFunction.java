@@ -0,0 +1,307 @@
+package functions;
+
+
+// неизменяемая табулированная функция в сжатом виде для редко используемых таблиц:
+// точки разбиты на блоки по 64, в каждом блоке значения закодированы без потерь
+// XOR-кодированием соседних double (как в Gorilla): одинаковые соседние значения
+// занимают 1 бит, у близких значений хранятся только отличающиеся биты
+//
+// X равномерной сетки не хранятся вовсе (left + i * step), иначе кодируются так же, как Y;
+// для произвольного доступа блок декодируется целиком, последний декодированный блок
+// кэшируется, поэтому обход точек подряд декодирует каждый блок один раз
+//
+// методы изменения точек выбрасывают UnsupportedOperationException, изменяемую копию
+// дает toArrayFunction(); объект можно передавать между потоками без блокировок
+public final class CompressedTabulatedFunction implements TabulatedFunction {
+    // декодированный блок; после публикации в кэше массивы не меняются
+    private static final class Block {
+        final int index;     // номер блока
+        final double[] xs;   // абсциссы точек блока (null для равномерной сетки)
+        final double[] ys;   // ординаты точек блока
+        Block(int index, double[] xs, double[] ys) {
+            this.index = index;
+            this.xs = xs;
+            this.ys = ys;
+        }
+    }
+
+    private static final double EPS = Math.ulp(1.0); // машинный эпсилон для сравнения double
+    private static final int BLOCK_SHIFT = 6;               // log2 размера блока
+    private static final int BLOCK_SIZE = 1 << BLOCK_SHIFT; // точек в блоке
+
+    private final int pointsCount;    // количество точек
+    private final double left;        // левая граница области определения
+    private final double right;       // правая граница области определения
+    private final double step;        // шаг равномерной сетки или 0, если X закодированы
+    private final long[] bits;        // закодированные блоки подряд
+    private final long[] offsets;     // номер первого бита каждого блока
+    private final double[] lastXs;    // X последней точки каждого блока (для поиска блока) или null
+    private volatile Block cache;     // последний декодированный блок
+    private final SegmentSearch.Points points = new SegmentSearch.Points() { // доступ к точкам для SegmentSearch
+        double x(int i) { return CompressedTabulatedFunction.this.x(i); }
+        double y(int i) { return CompressedTabulatedFunction.this.y(i); }
+    };
+
+    // сжатие точек другой табулированной функции
+    public CompressedTabulatedFunction(TabulatedFunction function) {
+        int count = function.getPointsCount();
+        if (count < 2)
+            throw new IllegalArgumentException("Кол-во точек < 2");
+        double[] xs = new double[count];
+        double[] ys = new double[count];
+        PointCursor cursor = function.cursor();
+        for (int i = 0; i < count && cursor.next(); i++) {
+            xs[i] = cursor.getX();
+            ys[i] = cursor.getY();
+        }
+
+        pointsCount = count;
+        left = xs[0];
+        right = xs[count - 1];
+        step = SegmentSearch.uniformStep(xs, count);
+
+        int blocks = (count + BLOCK_SIZE - 1) >>> BLOCK_SHIFT;
+        offsets = new long[blocks];
+        lastXs = step > 0 ? null : new double[blocks];
+        Writer writer = new Writer(count);
+        for (int b = 0; b < blocks; b++) {
+            int from = b << BLOCK_SHIFT;
+            int to = Math.min(from + BLOCK_SIZE, count);
+            offsets[b] = writer.position;
+            if (lastXs != null) {
+                writer.encode(xs, from, to);
+                lastXs[b] = xs[to - 1];
+            }
+            writer.encode(ys, from, to);
+        }
+        bits = new long[(int) ((writer.position + 63) >>> 6) + 1]; // лишнее слово - для чтения без проверок
+        System.arraycopy(writer.words, 0, bits, 0, bits.length - 1);
+    }
+
+    // размер сжатых данных в байтах (закодированные блоки и индекс блоков)
+    public long getEncodedSize() {
+        return bits.length * 8L + offsets.length * 8L + (lastXs != null ? lastXs.length * 8L : 0);
+    }
+
+    // запись битов в растущий массив long, старшие биты - первыми
+    private static final class Writer {
+        long[] words;    // записанные биты
+        long position;   // количество записанных битов
+
+        Writer(int count) {
+            words = new long[Math.max(count / 4, 4)]; // начальная оценка: 16 бит на точку
+        }
+
+        // запись младших n битов value (1 <= n <= 64)
+        void write(long value, int n) {
+            int word = (int) (position >>> 6);
+            if (word + 1 >= words.length) {
+                long[] grown = new long[words.length + (words.length >> 1) + 2];
+                System.arraycopy(words, 0, grown, 0, words.length);
+                words = grown;
+            }
+            if (n < 64)
+                value &= (1L << n) - 1;
+            int free = 64 - (int) (position & 63); // свободных битов в текущем слове
+            if (n <= free) {
+                words[word] |= value << (free - n);
+            } else {
+                words[word] |= value >>> (n - free);
+                words[word + 1] |= value << (64 - (n - free));
+            }
+            position += n;
+        }
+
+        // XOR-кодирование values[from, to): первое значение целиком, каждое следующее -
+        // XOR с предыдущим: '0' - совпадает; '10' - значащие биты в прежнем окне;
+        // '11' - 5 бит ведущих нулей, 6 бит длины - 1 и значащие биты
+        void encode(double[] values, int from, int to) {
+            long prev = Double.doubleToRawLongBits(values[from]);
+            write(prev, 64);
+            int leading = -1, trailing = 0; // окно значащих битов предыдущего XOR (-1 - нет)
+            for (int i = from + 1; i < to; i++) {
+                long current = Double.doubleToRawLongBits(values[i]);
+                long xor = current ^ prev;
+                prev = current;
+                if (xor == 0) {
+                    write(0, 1);
+                    continue;
+                }
+                int lz = Math.min(Long.numberOfLeadingZeros(xor), 31);
+                int tz = Long.numberOfTrailingZeros(xor);
+                if (leading >= 0 && lz >= leading && tz >= trailing) {
+                    write(0b10, 2); // значащие биты помещаются в прежнее окно
+                    write(xor >>> trailing, 64 - leading - trailing);
+                } else {
+                    int significant = 64 - lz - tz;
+                    write(0b11, 2);
+                    write(lz, 5);
+                    write(significant - 1, 6);
+                    write(xor >>> tz, significant);
+                    leading = lz;
+                    trailing = tz;
+                }
+            }
+        }
+    }
+
+    // чтение n битов (1 <= n <= 64), начиная с бита position
+    private long read(long position, int n) {
+        int word = (int) (position >>> 6);
+        int free = 64 - (int) (position & 63); // непрочитанных битов в слове
+        long mask = n == 64 ? -1L : (1L << n) - 1;
+        if (n <= free)
+            return (bits[word] >>> (free - n)) & mask;
+        int rest = n - free;
+        long high = free == 64 ? bits[word] : bits[word] & ((1L << free) - 1);
+        return (high << rest) | (bits[word + 1] >>> (64 - rest));
+    }
+
+    // декодирование count значений, начиная с бита position, в out; возвращает позицию после них
+    private long decode(long position, double[] out, int count) {
+        long prev = read(position, 64);
+        position += 64;
+        out[0] = Double.longBitsToDouble(prev);
+        int leading = 0, trailing = 0;
+        for (int i = 1; i < count; i++) {
+            if (read(position++, 1) == 0) {
+                out[i] = out[i - 1]; // значение совпадает с предыдущим
+                continue;
+            }
+            if (read(position++, 1) != 0) { // новое окно значащих битов
+                leading = (int) read(position, 5);
+                int significant = (int) read(position + 5, 6) + 1;
+                position += 11;
+                trailing = 64 - leading - significant;
+            }
+            int significant = 64 - leading - trailing;
+            prev ^= read(position, significant) << trailing;
+            position += significant;
+            out[i] = Double.longBitsToDouble(prev);
+        }
+        return position;
+    }
+
+    // декодированный блок с номером index (из кэша, если он декодирован последним)
+    private Block block(int index) {
+        Block b = cache;
+        if (b != null && b.index == index)
+            return b;
+        int count = Math.min(BLOCK_SIZE, pointsCount - (index << BLOCK_SHIFT));
+        long position = offsets[index];
+        double[] xs = null;
+        if (lastXs != null) {
+            xs = new double[count];
+            position = decode(position, xs, count);
+        }
+        double[] ys = new double[count];
+        decode(position, ys, count);
+        b = new Block(index, xs, ys);
+        cache = b;
+        return b;
+    }
+
+    private double x(int i) {
+        if (lastXs == null)
+            return left + i * step;
+        return block(i >>> BLOCK_SHIFT).xs[i & (BLOCK_SIZE - 1)];
+    }
+
+    private double y(int i) {
+        return block(i >>> BLOCK_SHIFT).ys[i & (BLOCK_SIZE - 1)];
+    }
+
+    public int getPointsCount() { return pointsCount; } // вернуть количество точек
+    public double getLeftDomainBorder() { return left; } // левая граница области определения
+    public double getRightDomainBorder() { return right; } // правая граница области определения
+
+    // получение значения функции в точке x (линейная интерполяция); декодируется
+    // не больше двух блоков - содержащих концы отрезка
+    public double getFunctionValue(double x) {
+        if (x < left - EPS || x > right + EPS)
+            return Double.NaN; // x вне области определения
+
+        return valueAt(findSegment(x), x);
+    }
+
+    // поиск отрезка: наименьший i, для которого x < x(i+1) + EPS (pointsCount - 1, если такого нет)
+    private int findSegment(double x) {
+        if (lastXs == null)
+            return SegmentSearch.locate(points, pointsCount, step, x);
+
+        // блок, в котором лежит правый конец отрезка: первый блок, последняя точка
+        // которого не левее x; внутри блока - бинарный поиск по декодированным X
+        int lo = 0, hi = lastXs.length - 1;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (x < lastXs[mid] + EPS)
+                hi = mid;
+            else
+                lo = mid + 1;
+        }
+        if (!(x < lastXs[lo] + EPS))
+            return pointsCount - 1; // x правее всех точек (в пределах EPS)
+        double[] xs = block(lo).xs;
+        int from = 0, to = xs.length - 1;
+        while (from < to) {
+            int mid = (from + to) >>> 1;
+            if (x < xs[mid] + EPS)
+                to = mid;
+            else
+                from = mid + 1;
+        }
+        return Math.max((lo << BLOCK_SHIFT) + from - 1, 0);
+    }
+
+    // значение функции в x по найденному отрезку i
+    private double valueAt(int i, double x) {
+        return SegmentSearch.valueAt(points, pointsCount, i, x);
+    }
+
+    // изменяемая копия точек (декодирование всех блоков)
+    public ArrayTabulatedFunction toArrayFunction() {
+        double[] xs = new double[pointsCount];
+        double[] ys = new double[pointsCount];
+        for (int i = 0; i < pointsCount; i++) {
+            xs[i] = x(i);
+            ys[i] = y(i);
+        }
+        return new ArrayTabulatedFunction(xs, ys, pointsCount, step);
+    }
+
+    // проверка корректности индекса
+    private void checkIndex(int index) {
+        if (index < 0 || index >= pointsCount)
+            throw new FunctionPointIndexOutOfBoundsException("Индекс" + index + "выходит за границы");
+    }
+
+    public FunctionPoint getPoint(int index) {
+        checkIndex(index);
+        return new FunctionPoint(x(index), y(index)); // вернуть копию точки
+    }
+
+    public double getPointX(int index) { checkIndex(index); return x(index); } // получить X точки
+    public double getPointY(int index) { checkIndex(index); return y(index); } // получить Y точки
+
+    // функция неизменяема - изменение точек не поддерживается
+
+    public void setPoint(int index, FunctionPoint point) {
+        throw new UnsupportedOperationException("функция неизменяема");
+    }
+
+    public void setPointX(int index, double x) {
+        throw new UnsupportedOperationException("функция неизменяема");
+    }
+
+    public void setPointY(int index, double y) {
+        throw new UnsupportedOperationException("функция неизменяема");
+    }
+
+    public void addPoint(FunctionPoint point) {
+        throw new UnsupportedOperationException("функция неизменяема");
+    }
+
+    public void deletePoint(int index) {
+        throw new UnsupportedOperationException("функция неизменяема");
+    }
+}
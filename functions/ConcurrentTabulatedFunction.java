@@ -0,0 +1,229 @@
+package functions;
+
+// табулированная функция для общего доступа из нескольких потоков:
+// точки хранятся в неизменяемом состоянии, которое читатели берут без блокировок,
+// а писатели копируют, изменяют и публикуют целиком (копирование при записи)
+public class ConcurrentTabulatedFunction implements TabulatedFunction {
+    // неизменяемый набор точек; после публикации массивы не меняются
+    private static final class State {
+        final double[] xs;   // абсциссы точек функции (по возрастанию)
+        final double[] ys;   // ординаты точек функции
+        final double step;   // шаг равномерной сетки по X или 0 (считается один раз при создании)
+        final long version;  // номер версии точек
+        State(double[] xs, double[] ys, long version) {
+            this(xs, ys, SegmentSearch.uniformStep(xs, xs.length), version);
+        }
+        State(double[] xs, double[] ys, double step, long version) {
+            this.xs = xs;
+            this.ys = ys;
+            this.step = step;
+            this.version = version;
+        }
+    }
+
+    private static final double EPS = Math.ulp(1.0); // машинный эпсилон для сравнения double
+
+    private volatile State state; // текущее опубликованное состояние
+
+    // конструктор 1: равномерное распределение точек по X
+    public ConcurrentTabulatedFunction(double leftX, double rightX, int pointsCount) {
+        this(leftX, rightX, new double[Math.max(pointsCount, 0)]);
+    }
+
+    // конструктор 2: по массиву Y-значений
+    public ConcurrentTabulatedFunction(double leftX, double rightX, double[] values) {
+        if (leftX >= rightX)
+            throw new IllegalArgumentException("левая граница >= правая граница");
+        if (values.length < 2)
+            throw new IllegalArgumentException("Кол-во точек < 2");
+
+        int count = values.length;
+        double[] xs = new double[count];
+        double step = (rightX - leftX) / (count - 1); // шаг по X между точками
+        for (int i = 0; i < count; i++)
+            xs[i] = leftX + i * step;
+        state = new State(xs, values.clone(), 0);
+    }
+
+    // конструктор 3: копия точек другой табулированной функции; копия проверяется так же,
+    // как в остальных конструкторах, на случай если источник менялся во время копирования
+    public ConcurrentTabulatedFunction(TabulatedFunction function) {
+        int count = function.getPointsCount();
+        if (count < 2)
+            throw new IllegalArgumentException("Кол-во точек < 2");
+        double[] xs = new double[count];
+        double[] ys = new double[count];
+        for (int i = 0; i < count; i++) {
+            xs[i] = function.getPointX(i);
+            ys[i] = function.getPointY(i);
+        }
+        for (int i = 1; i < count; i++)
+            if (!(xs[i] > xs[i - 1]))
+                throw new IllegalArgumentException("X точек не возрастают"); // порядок X (и отсутствие NaN)
+        state = new State(xs, ys, 0);
+    }
+
+    // проверка корректности индекса для заданного состояния
+    private static void checkIndex(State s, int index) {
+        if (index < 0 || index >= s.xs.length)
+            throw new FunctionPointIndexOutOfBoundsException("Индекс" + index + "выходит за границы");
+    }
+
+    // проверка, что x лежит строго между соседями точки index
+    private static boolean isInOrder(State s, int index, double x) {
+        return (index == 0 || x > s.xs[index - 1]) &&
+                (index == s.xs.length - 1 || x < s.xs[index + 1]);
+    }
+
+    // методы чтения берут один снимок состояния и дальше работают только с ним
+
+    public int getPointsCount() { return state.xs.length; } // вернуть текущее количество точек
+    public long getVersion() { return state.version; }      // номер версии опубликованного состояния
+    public double getLeftDomainBorder() { return state.xs[0]; } // левая граница области определения
+
+    public double getRightDomainBorder() { // правая граница области определения
+        double[] xs = state.xs;
+        return xs[xs.length - 1];
+    }
+
+    // получение значения функции в точке x (линейная интерполяция);
+    // пока сетка равномерна, отрезок находится арифметически за O(1)
+    public double getFunctionValue(double x) {
+        State s = state;
+        return SegmentSearch.value(s.xs, s.ys, s.xs.length, s.step, x);
+    }
+
+    // вычисление значения функции в точках массива xValues по одному снимку состояния
+    public void evaluate(double[] xValues, double[] out) {
+        State s = state;
+        SegmentSearch.evaluate(s.xs, s.ys, s.xs.length, s.step, xValues, out);
+    }
+
+    // неизменяемая функция по текущему состоянию за O(1): массивы состояния
+    // после публикации не меняются, поэтому копировать их не нужно
+    public ImmutableTabulatedFunction snapshot() {
+        State s = state;
+        return new ImmutableTabulatedFunction(s.xs, s.ys, s.step, s.version);
+    }
+
+    // обход всех точек одного снимка состояния
+    public void forEachPoint(DoubleBinaryConsumer action) {
+        State s = state;
+        for (int i = 0; i < s.xs.length; i++)
+            action.accept(s.xs[i], s.ys[i]);
+    }
+
+    // курсор по снимку состояния: параллельные изменения не влияют на начатый обход,
+    // reset() берет новый снимок
+    public PointCursor cursor() {
+        return new PointCursor() {
+            private State snapshot = state; // обходимый снимок
+            private int index = -1;         // индекс текущей точки
+
+            public boolean next() { return ++index < snapshot.xs.length; }
+            public double getX() { return snapshot.xs[index]; }
+            public double getY() { return snapshot.ys[index]; }
+            public void reset() {
+                snapshot = state;
+                index = -1;
+            }
+        };
+    }
+
+    public FunctionPoint getPoint(int index) {
+        State s = state;
+        checkIndex(s, index);
+        return new FunctionPoint(s.xs[index], s.ys[index]); // вернуть копию точки
+    }
+
+    public double getPointX(int index) { // получить X точки
+        State s = state;
+        checkIndex(s, index);
+        return s.xs[index];
+    }
+
+    public double getPointY(int index) { // получить Y точки
+        State s = state;
+        checkIndex(s, index);
+        return s.ys[index];
+    }
+
+    // методы записи выполняются по одному: копируют текущее состояние, меняют копию
+    // и публикуют ее одной записью в volatile-поле
+
+    public synchronized void setPoint(int index, FunctionPoint point) throws InappropriateFunctionPointException {
+        State s = state;
+        checkIndex(s, index);
+        if (!isInOrder(s, index, point.getX()))
+            throw new InappropriateFunctionPointException("X вне порядка"); // проверка порядка X
+        double[] xs = s.xs.clone();
+        double[] ys = s.ys.clone();
+        xs[index] = point.getX(); // заменить точку
+        ys[index] = point.getY();
+        state = new State(xs, ys, s.version + 1);
+    }
+
+    public synchronized void setPointX(int index, double x) throws InappropriateFunctionPointException {
+        State s = state;
+        checkIndex(s, index);
+        if (!isInOrder(s, index, x))
+            throw new InappropriateFunctionPointException("Х вне порядка"); // проверка порядка X
+        double[] xs = s.xs.clone();
+        xs[index] = x; // установить новое X
+        state = new State(xs, s.ys, s.version + 1);
+    }
+
+    public synchronized void setPointY(int index, double y) {
+        State s = state;
+        checkIndex(s, index);
+        double[] ys = s.ys.clone();
+        ys[index] = y; // установить новое Y
+        state = new State(s.xs, ys, s.step, s.version + 1); // абсциссы не менялись
+    }
+
+    // добавление новой точки
+    public synchronized void addPoint(FunctionPoint point) throws InappropriateFunctionPointException {
+        State s = state;
+        int count = s.xs.length;
+        double x = point.getX();
+
+        // место вставки - первая точка с X >= x; совпадать с x может только она или предыдущая
+        int lo = 0, hi = count;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (s.xs[mid] < x)
+                lo = mid + 1;
+            else
+                hi = mid;
+        }
+        if ((lo > 0 && Math.abs(s.xs[lo - 1] - x) < EPS) || (lo < count && Math.abs(s.xs[lo] - x) < EPS))
+            throw new InappropriateFunctionPointException("дубликат Х"); // проверка на дублирование X
+
+        double[] xs = new double[count + 1];
+        double[] ys = new double[count + 1];
+        System.arraycopy(s.xs, 0, xs, 0, lo);
+        System.arraycopy(s.ys, 0, ys, 0, lo);
+        xs[lo] = x; // вставить точку
+        ys[lo] = point.getY();
+        System.arraycopy(s.xs, lo, xs, lo + 1, count - lo);
+        System.arraycopy(s.ys, lo, ys, lo + 1, count - lo);
+        state = new State(xs, ys, s.version + 1);
+    }
+
+    // удаление точки
+    public synchronized void deletePoint(int index) {
+        State s = state;
+        checkIndex(s, index);
+        int count = s.xs.length;
+        if (count <= 2)
+            throw new IllegalStateException("удаление невозможно: кол-во точек < 3"); // минимальное количество точек
+
+        double[] xs = new double[count - 1];
+        double[] ys = new double[count - 1];
+        System.arraycopy(s.xs, 0, xs, 0, index);
+        System.arraycopy(s.ys, 0, ys, 0, index);
+        System.arraycopy(s.xs, index + 1, xs, index, count - index - 1);
+        System.arraycopy(s.ys, index + 1, ys, index, count - index - 1);
+        state = new State(xs, ys, s.version + 1);
+    }
+}
@@ -0,0 +1,7 @@
+package functions;
+
+// действие над парой координат точки (x, y) без создания объекта FunctionPoint
+@FunctionalInterface
+public interface DoubleBinaryConsumer {
+    void accept(double x, double y);
+}
@@ -0,0 +1,237 @@
+package functions;
+
+// ленивое выражение над табулированными функциями: сумма, произведение, масштабирование,
+// композиция, максимум и минимум строятся без вычисления промежуточных таблиц
+//
+// вычисление в наборе точек идет блоками по BLOCK точек: каждый узел выражения получает
+// блок аргументов и пишет блок результатов во временный буфер, табулированные функции
+// вычисляются пакетно через evaluate; буферы выделяются один раз на вычисление (по одному
+// на уровень вложенности), поэтому materialize проходит по сетке один раз без промежуточных таблиц
+public abstract class FunctionExpression {
+    private static final int BLOCK = 1024; // количество точек в блоке вычисления
+
+    FunctionExpression() {
+    }
+
+    // значение выражения в точке x
+    public abstract double value(double x);
+
+    // вычисление выражения в BLOCK точках x с записью в out
+    abstract void evaluateBlock(double[] x, double[] out, Scratch scratch);
+
+    // выражения-листья
+
+    public static FunctionExpression of(TabulatedFunction function) {
+        if (function == null)
+            throw new IllegalArgumentException("функция должна быть задана");
+        return new Leaf(function);
+    }
+
+    public static FunctionExpression constant(double c) { return new Constant(c); }
+
+    // построение выражений
+
+    public FunctionExpression plus(FunctionExpression other) { return new Binary(this, other, Binary.SUM); }
+    public FunctionExpression plus(TabulatedFunction other) { return plus(of(other)); }
+    public FunctionExpression minus(FunctionExpression other) { return new Binary(this, other, Binary.DIFFERENCE); }
+    public FunctionExpression minus(TabulatedFunction other) { return minus(of(other)); }
+    public FunctionExpression times(FunctionExpression other) { return new Binary(this, other, Binary.PRODUCT); }
+    public FunctionExpression times(TabulatedFunction other) { return times(of(other)); }
+    public FunctionExpression max(FunctionExpression other) { return new Binary(this, other, Binary.MAX); }
+    public FunctionExpression max(TabulatedFunction other) { return max(of(other)); }
+    public FunctionExpression min(FunctionExpression other) { return new Binary(this, other, Binary.MIN); }
+    public FunctionExpression min(TabulatedFunction other) { return min(of(other)); }
+
+    // a * this + b
+    public FunctionExpression scale(double a, double b) { return new Affine(this, a, b); }
+    public FunctionExpression scale(double a) { return scale(a, 0); }
+
+    // композиция this(inner(x))
+    public FunctionExpression compose(FunctionExpression inner) { return new Compose(this, inner); }
+    public FunctionExpression compose(TabulatedFunction inner) { return compose(of(inner)); }
+
+    // вычисление выражения в точках массива xValues с записью результатов в out
+    public void evaluate(double[] xValues, double[] out) {
+        if (out.length < xValues.length)
+            throw new IllegalArgumentException("массив результатов короче массива x");
+
+        Scratch scratch = new Scratch();
+        double[] x = new double[BLOCK];
+        double[] y = new double[BLOCK];
+        for (int from = 0; from < xValues.length; from += BLOCK) {
+            int n = Math.min(BLOCK, xValues.length - from);
+            System.arraycopy(xValues, from, x, 0, n);
+            for (int j = n; j < BLOCK; j++)
+                x[j] = x[n - 1]; // неполный блок дополняется последним x
+            evaluateBlock(x, y, scratch);
+            System.arraycopy(y, 0, out, from, n);
+        }
+    }
+
+    // табулирование выражения на равномерной сетке из count точек от leftX до rightX
+    // (сетка строится так же, как в конструкторах табулированных функций)
+    public ArrayTabulatedFunction materialize(double leftX, double rightX, int count) {
+        if (leftX >= rightX)
+            throw new IllegalArgumentException("левая граница >= правая граница");
+        if (count < 2)
+            throw new IllegalArgumentException("Кол-во точек < 2");
+
+        double step = (rightX - leftX) / (count - 1);
+        double[] xs = new double[count];
+        for (int i = 0; i < count; i++)
+            xs[i] = leftX + i * step;
+        double[] ys = new double[count];
+        evaluate(xs, ys);
+        return new ArrayTabulatedFunction(xs, ys, count, step);
+    }
+
+    // табулирование выражения в точках grid (по возрастанию)
+    public ArrayTabulatedFunction materialize(double[] grid) {
+        if (grid.length < 2)
+            throw new IllegalArgumentException("Кол-во точек < 2");
+        for (int i = 1; i < grid.length; i++)
+            if (!(grid[i] > grid[i - 1]))
+                throw new IllegalArgumentException("X точек не возрастают");
+
+        double[] xs = grid.clone();
+        double[] ys = new double[xs.length];
+        evaluate(xs, ys);
+        return new ArrayTabulatedFunction(xs, ys, xs.length, SegmentSearch.uniformStep(xs, xs.length));
+    }
+
+    // стек временных буферов для промежуточных результатов узлов
+    static final class Scratch {
+        private double[][] buffers = new double[4][];
+        private int depth;
+
+        double[] push() {
+            if (depth == buffers.length) {
+                double[][] grown = new double[buffers.length * 2][];
+                System.arraycopy(buffers, 0, grown, 0, buffers.length);
+                buffers = grown;
+            }
+            if (buffers[depth] == null)
+                buffers[depth] = new double[BLOCK];
+            return buffers[depth++];
+        }
+
+        void pop() { depth--; }
+    }
+
+    // табулированная функция
+    private static final class Leaf extends FunctionExpression {
+        private final TabulatedFunction function;
+
+        Leaf(TabulatedFunction function) { this.function = function; }
+
+        public double value(double x) { return function.getFunctionValue(x); }
+
+        void evaluateBlock(double[] x, double[] out, Scratch scratch) {
+            function.evaluate(x, out);
+        }
+    }
+
+    // константа
+    private static final class Constant extends FunctionExpression {
+        private final double c;
+
+        Constant(double c) { this.c = c; }
+
+        public double value(double x) { return c; }
+
+        void evaluateBlock(double[] x, double[] out, Scratch scratch) {
+            for (int j = 0; j < BLOCK; j++)
+                out[j] = c;
+        }
+    }
+
+    // a * f + b
+    private static final class Affine extends FunctionExpression {
+        private final FunctionExpression f;
+        private final double a, b;
+
+        Affine(FunctionExpression f, double a, double b) {
+            this.f = f;
+            this.a = a;
+            this.b = b;
+        }
+
+        public double value(double x) { return a * f.value(x) + b; }
+
+        void evaluateBlock(double[] x, double[] out, Scratch scratch) {
+            f.evaluateBlock(x, out, scratch);
+            for (int j = 0; j < BLOCK; j++)
+                out[j] = a * out[j] + b;
+        }
+    }
+
+    // outer(inner(x)): результаты inner сразу служат аргументами outer
+    private static final class Compose extends FunctionExpression {
+        private final FunctionExpression outer, inner;
+
+        Compose(FunctionExpression outer, FunctionExpression inner) {
+            this.outer = outer;
+            this.inner = inner;
+        }
+
+        public double value(double x) { return outer.value(inner.value(x)); }
+
+        void evaluateBlock(double[] x, double[] out, Scratch scratch) {
+            double[] t = scratch.push();
+            inner.evaluateBlock(x, t, scratch);
+            outer.evaluateBlock(t, out, scratch);
+            scratch.pop();
+        }
+    }
+
+    // поэлементная операция над двумя выражениями
+    private static final class Binary extends FunctionExpression {
+        static final int SUM = 0, DIFFERENCE = 1, PRODUCT = 2, MAX = 3, MIN = 4;
+
+        private final FunctionExpression left, right;
+        private final int op;
+
+        Binary(FunctionExpression left, FunctionExpression right, int op) {
+            if (right == null)
+                throw new IllegalArgumentException("выражение должно быть задано");
+            this.left = left;
+            this.right = right;
+            this.op = op;
+        }
+
+        public double value(double x) {
+            double a = left.value(x), b = right.value(x);
+            switch (op) {
+                case SUM: return a + b;
+                case DIFFERENCE: return a - b;
+                case PRODUCT: return a * b;
+                case MAX: return Math.max(a, b);
+                default: return Math.min(a, b);
+            }
+        }
+
+        // операция выбирается один раз на блок, внутренние циклы без ветвлений
+        void evaluateBlock(double[] x, double[] out, Scratch scratch) {
+            double[] t = scratch.push();
+            left.evaluateBlock(x, out, scratch);
+            right.evaluateBlock(x, t, scratch);
+            switch (op) {
+                case SUM:
+                    for (int j = 0; j < BLOCK; j++) out[j] += t[j];
+                    break;
+                case DIFFERENCE:
+                    for (int j = 0; j < BLOCK; j++) out[j] -= t[j];
+                    break;
+                case PRODUCT:
+                    for (int j = 0; j < BLOCK; j++) out[j] *= t[j];
+                    break;
+                case MAX:
+                    for (int j = 0; j < BLOCK; j++) out[j] = Math.max(out[j], t[j]);
+                    break;
+                default:
+                    for (int j = 0; j < BLOCK; j++) out[j] = Math.min(out[j], t[j]);
+            }
+            scratch.pop();
+        }
+    }
+}
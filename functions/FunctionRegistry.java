@@ -0,0 +1,396 @@
+package functions;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// реестр именованных табулированных функций, загружаемых из каталога по требованию:
+// таблица name читается из файла name.tabf (двоичный формат MappedTabulatedFunction),
+// name.csv или name.txt (текстовый формат TabulatedFunctionText) при первом обращении
+//
+// загруженные таблицы занимают оценочно 16 байт на точку; когда сумма превышает бюджет
+// памяти, вытесняются таблицы, к которым дольше всего не обращались (LRU по отметкам
+// обращений); измененные и не сохраненные таблицы не вытесняются, пока не вызван save
+//
+// файлы читаются без общей блокировки: первый промах по имени оставляет в реестре
+// ожидание загрузки, остальные потоки с тем же именем ждут его, а промахи по разным
+// именам загружаются параллельно; общая блокировка нужна только для учета памяти и вытеснения
+//
+// перед таблицами может стоять кэш значений getFunctionValue фиксированного размера:
+// пары (таблица, x) раскладываются по ячейкам хэш-таблицы, новое значение вытесняет
+// старое из той же ячейки; у каждой таблицы есть поколение, которое растет при любом
+// изменении точек, и значения прежних поколений считаются устаревшими
+//
+// get и вычисления можно вызывать из многих потоков; изменять таблицы, как и любую
+// ArrayTabulatedFunction, можно только без параллельных обращений к той же таблице
+public final class FunctionRegistry {
+    private static final long BYTES_PER_POINT = 16;                     // оценка памяти на точку
+    private static final String[] EXTENSIONS = {".tabf", ".csv", ".txt"}; // расширения файлов по приоритету
+
+    // значение в кэше; все поля final, поэтому запись ссылки в массив публикует его целиком
+    private static final class Memo {
+        final long table;        // номер таблицы
+        final long generation;   // поколение таблицы при вычислении
+        final long xBits;        // биты x
+        final double value;      // значение функции
+        Memo(long table, long generation, long xBits, double value) {
+            this.table = table;
+            this.generation = generation;
+            this.xBits = xBits;
+            this.value = value;
+        }
+    }
+
+    private final Path directory;                  // каталог файлов таблиц
+    private final long memoryBudget;               // бюджет памяти таблиц в байтах
+    private final Memo[] memo;                     // кэш значений или null, если выключен
+    private final ConcurrentHashMap<String, Table> tables = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, CompletableFuture<Table>> loading = new ConcurrentHashMap<>(); // загрузки в процессе
+    private final AtomicLong memoryUsage = new AtomicLong(); // оценка памяти загруженных таблиц
+    private final AtomicLong clock = new AtomicLong();       // часы для отметок обращений
+    private final AtomicLong nextId = new AtomicLong();      // номера загруженных таблиц
+    private final Object loadLock = new Object();            // учет памяти и вытеснение по одному
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder memoHits = new LongAdder();
+    private final LongAdder memoMisses = new LongAdder();
+
+    // реестр таблиц каталога directory с бюджетом памяти memoryBudget байт и кэшем
+    // значений на memoCapacity записей (округляется вверх до степени двойки, 0 - без кэша)
+    public FunctionRegistry(Path directory, long memoryBudget, int memoCapacity) {
+        if (memoryBudget <= 0)
+            throw new IllegalArgumentException("бюджет памяти должен быть положительным");
+        if (memoCapacity < 0)
+            throw new IllegalArgumentException("размер кэша не может быть отрицательным");
+        this.directory = directory;
+        this.memoryBudget = memoryBudget;
+        memo = memoCapacity == 0 ? null
+                : new Memo[memoCapacity == 1 ? 1 : Integer.highestOneBit(memoCapacity - 1) << 1];
+    }
+
+    // таблица с именем name; при первом обращении (или после вытеснения) читается из файла
+    //
+    // возвращаемая функция - представление таблицы в реестре: изменения ее точек
+    // сбрасывают кэш значений этой таблицы; после вытеснения представление можно только
+    // читать (изменения выбрасывают IllegalStateException, чтобы не разойтись с таблицей,
+    // которую следующий get прочитает из файла заново)
+    public TabulatedFunction get(String name) throws IOException {
+        Table table = tables.get(name);
+        if (table == null) {
+            CompletableFuture<Table> created = new CompletableFuture<>();
+            CompletableFuture<Table> pending = loading.putIfAbsent(name, created);
+            if (pending != null)
+                return await(pending); // таблицу уже загружает другой поток
+            try {
+                // загрузка могла завершиться между tables.get и putIfAbsent: таблица
+                // попадает в tables раньше, чем ожидание удаляется из loading
+                table = tables.get(name);
+                if (table == null) {
+                    table = load(name); // чтение файла без общей блокировки
+                    synchronized (loadLock) {
+                        tables.put(name, table);
+                        memoryUsage.addAndGet(table.size);
+                        loads.increment();
+                        evictOverBudget(table);
+                    }
+                    created.complete(table);
+                    return table;
+                }
+                created.complete(table);
+            } catch (IOException | RuntimeException | Error e) {
+                created.completeExceptionally(e);
+                throw e;
+            } finally {
+                loading.remove(name, created);
+            }
+        }
+        table.lastAccess = clock.incrementAndGet();
+        hits.increment();
+        return table;
+    }
+
+    // ожидание загрузки, начатой другим потоком; ее ошибка выбрасывается и здесь
+    private Table await(CompletableFuture<Table> pending) throws IOException {
+        Table table;
+        try {
+            table = pending.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("ожидание загрузки таблицы прервано", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException)
+                throw new IOException(cause.getMessage(), cause);
+            if (cause instanceof RuntimeException)
+                throw (RuntimeException) cause;
+            throw (Error) cause;
+        }
+        table.lastAccess = clock.incrementAndGet();
+        hits.increment();
+        return table;
+    }
+
+    // чтение таблицы из первого найденного файла name.*
+    private Table load(String name) throws IOException {
+        for (String extension : EXTENSIONS) {
+            Path file = directory.resolve(name + extension);
+            if (!Files.isRegularFile(file))
+                continue;
+            boolean binary = extension.equals(".tabf");
+            ArrayTabulatedFunction function = binary ? copy(new MappedTabulatedFunction(file))
+                    : TabulatedFunctionText.readArray(file);
+            return new Table(name, file, binary, function);
+        }
+        throw new IOException("таблица " + name + " не найдена в " + directory);
+    }
+
+    // копия отображенной функции в куче (отображение освобождается вместе с объектом)
+    private static ArrayTabulatedFunction copy(TabulatedFunction function) {
+        int count = function.getPointsCount();
+        double[] xs = new double[count];
+        double[] ys = new double[count];
+        PointCursor cursor = function.cursor();
+        for (int i = 0; i < count && cursor.next(); i++) {
+            xs[i] = cursor.getX();
+            ys[i] = cursor.getY();
+        }
+        return new ArrayTabulatedFunction(xs, ys, count, SegmentSearch.uniformStep(xs, count));
+    }
+
+    // вытеснение давно не использованных таблиц, пока память превышает бюджет;
+    // keep - только что загруженная или измененная таблица, она не вытесняется
+    //
+    // таблицы просматриваются один раз: кандидаты собираются в двоичную кучу по отметкам
+    // обращений (отметки запоминаются при просмотре), и из нее вынимаются самые старые,
+    // пока память не войдет в бюджет - O(n + k log n) для k вытесненных таблиц
+    private void evictOverBudget(Table keep) {
+        if (memoryUsage.get() <= memoryBudget)
+            return;
+        Table[] heap = new Table[tables.size()];
+        long[] stamps = new long[heap.length];
+        int size = 0;
+        for (Table table : tables.values()) {
+            if (size == heap.length)
+                break; // таблицы, добавленные во время просмотра, только что использовались
+            if (table != keep && !table.dirty) {
+                heap[size] = table;
+                stamps[size++] = table.lastAccess;
+            }
+        }
+        for (int i = size / 2 - 1; i >= 0; i--)
+            siftDown(heap, stamps, i, size);
+
+        while (memoryUsage.get() > memoryBudget && size > 0) {
+            Table oldest = heap[0];
+            size--;
+            heap[0] = heap[size];
+            stamps[0] = stamps[size];
+            siftDown(heap, stamps, 0, size);
+            if (!oldest.dirty && tables.remove(oldest.name, oldest)) {
+                oldest.evicted = true;
+                memoryUsage.addAndGet(-oldest.size);
+                evictions.increment();
+            }
+        }
+    }
+
+    // восстановление порядка кучи (наименьшая отметка в корне) от элемента i вниз
+    private static void siftDown(Table[] heap, long[] stamps, int i, int size) {
+        Table table = heap[i];
+        long stamp = stamps[i];
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size)
+                break;
+            if (child + 1 < size && stamps[child + 1] < stamps[child])
+                child++;
+            if (stamps[child] >= stamp)
+                break;
+            heap[i] = heap[child];
+            stamps[i] = stamps[child];
+            i = child;
+        }
+        heap[i] = table;
+        stamps[i] = stamp;
+    }
+
+    // запись измененной таблицы обратно в ее файл; после этого таблицу можно вытеснять
+    //
+    // таблица записывается во временный файл того же каталога, который затем атомарно
+    // заменяет исходный: при сбое записи исходный файл остается целым, а читатели
+    // (в том числе отображения MappedTabulatedFunction) видят либо старый файл, либо новый
+    public void save(String name) throws IOException {
+        Table table = tables.get(name);
+        if (table == null || !table.dirty)
+            return; // таблица не загружена или не менялась
+        Path temp = Files.createTempFile(table.file.toAbsolutePath().getParent(), name, ".tmp");
+        try {
+            if (table.binary)
+                MappedTabulatedFunction.write(table.function, temp);
+            else
+                TabulatedFunctionText.write(table.function, temp);
+            Files.move(temp, table.file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp); // остается только при ошибке
+        }
+        table.dirty = false;
+        synchronized (loadLock) {
+            evictOverBudget(null);
+        }
+    }
+
+    // выгрузка таблицы без сохранения изменений
+    public void evict(String name) {
+        synchronized (loadLock) {
+            Table table = tables.remove(name);
+            if (table != null) {
+                table.evicted = true;
+                memoryUsage.addAndGet(-table.size);
+                evictions.increment();
+            }
+        }
+    }
+
+    // статистика реестра
+
+    public int getTableCount() { return tables.size(); }             // загружено таблиц
+    public long getMemoryUsage() { return memoryUsage.get(); }       // оценка памяти таблиц в байтах
+    public long getMemoryBudget() { return memoryBudget; }           // бюджет памяти в байтах
+    public long getHits() { return hits.sum(); }                     // обращений к загруженным таблицам
+    public long getLoads() { return loads.sum(); }                   // загрузок из файлов (промахов)
+    public long getEvictions() { return evictions.sum(); }           // вытесненных таблиц
+    public long getMemoHits() { return memoHits.sum(); }             // значений из кэша
+    public long getMemoMisses() { return memoMisses.sum(); }         // вычисленных значений
+    public int getMemoCapacity() { return memo != null ? memo.length : 0; } // размер кэша значений
+
+    // таблица реестра: делегирует вычисления загруженной функции, значения getFunctionValue
+    // берет из кэша, а при изменении точек увеличивает поколение и пересчитывает размер
+    private final class Table implements TabulatedFunction {
+        final String name;                       // имя таблицы
+        final Path file;                         // файл, из которого таблица прочитана
+        final boolean binary;                    // файл в двоичном формате
+        final ArrayTabulatedFunction function;   // точки таблицы
+        final long id = nextId.incrementAndGet(); // номер таблицы для ключей кэша
+        volatile long generation;                // поколение точек
+        volatile long lastAccess;                // отметка последнего обращения
+        volatile boolean dirty;                  // есть несохраненные изменения
+        volatile boolean evicted;                // таблица удалена из реестра
+        long size;                               // оценка занимаемой памяти
+
+        Table(String name, Path file, boolean binary, ArrayTabulatedFunction function) {
+            this.name = name;
+            this.file = file;
+            this.binary = binary;
+            this.function = function;
+            size = function.getPointsCount() * BYTES_PER_POINT;
+            lastAccess = clock.incrementAndGet();
+        }
+
+        // отметка обращения при вычислениях через таблицу, полученную из get раньше;
+        // часы увеличиваются, только если после прошлой отметки обращались к другим
+        // таблицам, поэтому частые чтения одной таблицы не пишут в общие поля
+        private void touch() {
+            if (lastAccess != clock.get())
+                lastAccess = clock.incrementAndGet();
+        }
+
+        // изменение точек: таблица должна быть в реестре; отметка dirty ставится до
+        // изменения, поэтому таблицу не вытеснят, пока оно выполняется, а если изменение
+        // отклонено исключением, возвращается прежняя отметка
+        private void modify(Runnable change) {
+            boolean wasDirty;
+            synchronized (loadLock) {
+                if (tables.get(name) != this)
+                    throw new IllegalStateException("таблица " + name + " вытеснена из реестра");
+                wasDirty = dirty;
+                dirty = true;
+            }
+            try {
+                change.run();
+            } catch (RuntimeException e) {
+                dirty = wasDirty;
+                throw e;
+            }
+            modified();
+        }
+
+        // учет изменения точек: новое поколение делает значения в кэше устаревшими,
+        // а выросшая таблица может вытеснить другие, если память превысила бюджет
+        private void modified() {
+            generation++; // изменяет только один поток (см. описание класса)
+            long newSize = function.getPointsCount() * BYTES_PER_POINT;
+            synchronized (loadLock) {
+                if (tables.get(name) == this)
+                    memoryUsage.addAndGet(newSize - size);
+                size = newSize;
+                evictOverBudget(this);
+            }
+        }
+
+        public double getFunctionValue(double x) {
+            touch();
+            if (memo == null)
+                return function.getFunctionValue(x);
+
+            long generation = this.generation; // читается до вычисления, см. modified()
+            long xBits = Double.doubleToRawLongBits(x);
+            long h = (id * 0x9E3779B97F4A7C15L) ^ xBits;
+            h ^= h >>> 29;
+            h *= 0xBF58476D1CE4E5B9L;
+            h ^= h >>> 32;
+            int slot = (int) h & (memo.length - 1);
+            Memo m = memo[slot];
+            if (m != null && m.table == id && m.generation == generation && m.xBits == xBits) {
+                memoHits.increment();
+                return m.value;
+            }
+            memoMisses.increment();
+            double value = function.getFunctionValue(x);
+            if (!evicted) // вытесненная таблица не занимает ячейки кэша
+                memo[slot] = new Memo(id, generation, xBits, value);
+            return value;
+        }
+
+        public int getPointsCount() { return function.getPointsCount(); }
+        public long getVersion() { return function.getVersion(); }
+        public double getLeftDomainBorder() { return function.getLeftDomainBorder(); }
+        public double getRightDomainBorder() { return function.getRightDomainBorder(); }
+        public void evaluate(double[] xValues, double[] out) { touch(); function.evaluate(xValues, out); }
+        public double integrate(double a, double b) { touch(); return function.integrate(a, b); }
+        public double derivative(double x) { touch(); return function.derivative(x); }
+        public ImmutableTabulatedFunction snapshot() { return function.snapshot(); }
+        public void forEachPoint(DoubleBinaryConsumer action) { function.forEachPoint(action); }
+        public PointCursor cursor() { return function.cursor(); }
+        public FunctionPoint getPoint(int index) { return function.getPoint(index); }
+        public double getPointX(int index) { return function.getPointX(index); }
+        public double getPointY(int index) { return function.getPointY(index); }
+
+        public void setPoint(int index, FunctionPoint point) throws InappropriateFunctionPointException {
+            modify(() -> function.setPoint(index, point));
+        }
+
+        public void setPointX(int index, double x) throws InappropriateFunctionPointException {
+            modify(() -> function.setPointX(index, x));
+        }
+
+        public void setPointY(int index, double y) {
+            modify(() -> function.setPointY(index, y));
+        }
+
+        public void addPoint(FunctionPoint point) throws InappropriateFunctionPointException {
+            modify(() -> function.addPoint(point));
+        }
+
+        public void deletePoint(int index) {
+            modify(() -> function.deletePoint(index));
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package functions;
+
+// неизменяемая табулированная функция: точки хранятся в двух массивах примитивов,
+// которые после создания не меняются, все поля final; такой объект можно передавать
+// между потоками без блокировок и копирования, в том числе через обычные поля
+//
+// получается из любой функции методом snapshot(); методы изменения точек выбрасывают
+// UnsupportedOperationException, изменяемую копию дает toArrayFunction()
+public final class ImmutableTabulatedFunction implements TabulatedFunction {
+    private static final double EPS = Math.ulp(1.0); // машинный эпсилон для сравнения double
+
+    private final double[] xs;   // абсциссы точек функции (по возрастанию)
+    private final double[] ys;   // ординаты точек функции
+    private final double step;   // шаг равномерной сетки по X или 0
+    private final long version;  // версия точек функции, с которой снят снимок
+
+    // создание по массивам X и Y точек (массивы копируются)
+    public ImmutableTabulatedFunction(double[] xValues, double[] yValues) {
+        if (xValues.length != yValues.length)
+            throw new IllegalArgumentException("массивы X и Y разной длины");
+        if (xValues.length < 2)
+            throw new IllegalArgumentException("Кол-во точек < 2");
+        for (int i = 1; i < xValues.length; i++)
+            if (!(xValues[i] > xValues[i - 1]))
+                throw new IllegalArgumentException("X точек не возрастают"); // порядок X (и отсутствие NaN)
+
+        xs = xValues.clone();
+        ys = yValues.clone();
+        step = SegmentSearch.uniformStep(xs, xs.length);
+        version = 0;
+    }
+
+    // создание по готовым массивам без копирования и проверок: массивы передаются во владение,
+    // version - версия точек функции, с которой снят снимок
+    ImmutableTabulatedFunction(double[] xs, double[] ys, double step, long version) {
+        this.xs = xs;
+        this.ys = ys;
+        this.step = step;
+        this.version = version;
+    }
+
+    public int getPointsCount() { return xs.length; } // вернуть количество точек
+    public long getVersion() { return version; } // версия исходной функции на момент снимка
+    public double getLeftDomainBorder() { return xs[0]; } // левая граница области определения
+    public double getRightDomainBorder() { return xs[xs.length - 1]; } // правая граница области определения
+
+    // получение значения функции в точке x (линейная интерполяция)
+    public double getFunctionValue(double x) {
+        return SegmentSearch.value(xs, ys, xs.length, step, x);
+    }
+
+    // вычисление значения функции в точках массива xValues с записью результатов в out
+    public void evaluate(double[] xValues, double[] out) {
+        SegmentSearch.evaluate(xs, ys, xs.length, step, xValues, out);
+    }
+
+    // то же для участка xValues[from, to) с записью в out[from, to) (для параллельного вычисления)
+    void evaluate(double[] xValues, int from, int to, double[] out) {
+        SegmentSearch.evaluate(xs, ys, xs.length, step, xValues, from, to, out);
+    }
+
+    // производная - наклон отрезка, содержащего x, за время поиска отрезка
+    public double derivative(double x) {
+        if (!(x >= getLeftDomainBorder() - EPS && x <= getRightDomainBorder() + EPS))
+            return Double.NaN; // x вне области определения
+        int i = Math.min(SegmentSearch.locate(xs, xs.length, step, x), xs.length - 2);
+        return (ys[i + 1] - ys[i]) / (xs[i + 1] - xs[i]);
+    }
+
+    // функция уже неизменяема - снимок не нужен
+    public ImmutableTabulatedFunction snapshot() { return this; }
+
+    // тот же снимок с другим номером версии (массивы общие, так как не меняются)
+    ImmutableTabulatedFunction withVersion(long version) {
+        return version == this.version ? this : new ImmutableTabulatedFunction(xs, ys, step, version);
+    }
+
+    // изменяемая копия точек; номера версий копии продолжаются с версии снимка
+    public ArrayTabulatedFunction toArrayFunction() {
+        return new ArrayTabulatedFunction(xs.clone(), ys.clone(), xs.length, step, version);
+    }
+
+    // обход всех точек по массивам без создания объектов точек
+    public void forEachPoint(DoubleBinaryConsumer action) {
+        for (int i = 0; i < xs.length; i++)
+            action.accept(xs[i], ys[i]);
+    }
+
+    // курсор по индексам массивов
+    public PointCursor cursor() {
+        return new PointCursor() {
+            private int index = -1; // индекс текущей точки
+
+            public boolean next() { return ++index < xs.length; }
+            public double getX() { return xs[index]; }
+            public double getY() { return ys[index]; }
+            public void reset() { index = -1; }
+        };
+    }
+
+    // проверка корректности индекса
+    private void checkIndex(int index) {
+        if (index < 0 || index >= xs.length)
+            throw new FunctionPointIndexOutOfBoundsException("Индекс" + index + "выходит за границы");
+    }
+
+    public FunctionPoint getPoint(int index) {
+        checkIndex(index);
+        return new FunctionPoint(xs[index], ys[index]); // вернуть копию точки
+    }
+
+    public double getPointX(int index) { checkIndex(index); return xs[index]; } // получить X точки
+    public double getPointY(int index) { checkIndex(index); return ys[index]; } // получить Y точки
+
+    // функция неизменяема - изменение точек не поддерживается
+
+    public void setPoint(int index, FunctionPoint point) {
+        throw new UnsupportedOperationException("функция неизменяема");
+    }
+
+    public void setPointX(int index, double x) {
+        throw new UnsupportedOperationException("функция неизменяема");
+    }
+
+    public void setPointY(int index, double y) {
+        throw new UnsupportedOperationException("функция неизменяема");
+    }
+
+    public void addPoint(FunctionPoint point) {
+        throw new UnsupportedOperationException("функция неизменяема");
+    }
+
+    public void deletePoint(int index) {
+        throw new UnsupportedOperationException("функция неизменяема");
+    }
+}
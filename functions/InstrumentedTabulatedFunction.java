@@ -0,0 +1,206 @@
+package functions;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+// декоратор табулированной функции, собирающий статистику использования: количество
+// вычислений и промахов мимо области определения, обращений и изменений точек,
+// перераспределений массивов ArrayTabulatedFunction и время вычисления значений
+//
+// счетчики - LongAdder, поэтому их увеличение из многих потоков не упирается в одну
+// кэш-линию; время измеряется в среднем у одного вычисления из SAMPLE_PERIOD (выборка
+// по ThreadLocalRandom, без общих полей), чтобы вызовы System.nanoTime не стоили дороже
+// самого вычисления; статистика публикуется через JMX
+//
+// instrument() при выключенном сборе (свойство functions.instrumentation не равно true)
+// возвращает исходную функцию, и декоратор не стоит ничего
+public class InstrumentedTabulatedFunction implements TabulatedFunction, InstrumentedTabulatedFunctionMBean {
+    public static final String ENABLED_PROPERTY = "functions.instrumentation"; // свойство включения сбора
+    private static final int SAMPLE_PERIOD = 64;     // замер времени у одного вычисления из SAMPLE_PERIOD
+    private static final double EPS = Math.ulp(1.0); // машинный эпсилон для сравнения double
+
+    private final TabulatedFunction function; // исходная функция
+
+    private final LongAdder evaluations = new LongAdder();
+    private final LongAdder batchEvaluations = new LongAdder();
+    private final LongAdder outsideDomain = new LongAdder();
+    private final LongAdder pointReads = new LongAdder();
+    private final LongAdder pointWrites = new LongAdder();
+    private final LongAdder pointsAdded = new LongAdder();
+    private final LongAdder pointsDeleted = new LongAdder();
+    private final LongAdder reallocations = new LongAdder();
+    private final LongAdder failedModifications = new LongAdder();
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    public InstrumentedTabulatedFunction(TabulatedFunction function) {
+        if (function == null)
+            throw new IllegalArgumentException("функция должна быть задана");
+        this.function = function;
+    }
+
+    // декоратор со сбором статистики, если он включен свойством functions.instrumentation,
+    // иначе - сама функция
+    public static TabulatedFunction instrument(TabulatedFunction function) {
+        return Boolean.getBoolean(ENABLED_PROPERTY) ? new InstrumentedTabulatedFunction(function) : function;
+    }
+
+    // регистрация счетчиков в платформенном MBean-сервере под именем
+    // functions:type=TabulatedFunction,name=<name>
+    public ObjectName register(String name) throws JMException {
+        ObjectName objectName = new ObjectName("functions:type=TabulatedFunction,name=" + ObjectName.quote(name));
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+        return objectName;
+    }
+
+    // снятие регистрации
+    public static void unregister(ObjectName objectName) throws JMException {
+        ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+    }
+
+    public TabulatedFunction getFunction() { return function; } // исходная функция
+
+    // счетчики
+
+    public long getEvaluations() { return evaluations.sum(); }
+    public long getBatchEvaluations() { return batchEvaluations.sum(); }
+    public long getOutsideDomain() { return outsideDomain.sum(); }
+    public long getPointReads() { return pointReads.sum(); }
+    public long getPointWrites() { return pointWrites.sum(); }
+    public long getPointsAdded() { return pointsAdded.sum(); }
+    public long getPointsDeleted() { return pointsDeleted.sum(); }
+    public long getReallocations() { return reallocations.sum(); }
+    public long getFailedModifications() { return failedModifications.sum(); }
+    public LatencyHistogram getLatencyHistogram() { return latency; }
+    public long getLatencySamples() { return latency.getCount(); }
+    public long getLatencyP50Nanos() { return latency.getValueAtQuantile(0.5); }
+    public long getLatencyP99Nanos() { return latency.getValueAtQuantile(0.99); }
+    public long getLatencyMaxNanos() { return latency.getValueAtQuantile(1); }
+
+    public void reset() {
+        evaluations.reset();
+        batchEvaluations.reset();
+        outsideDomain.reset();
+        pointReads.reset();
+        pointWrites.reset();
+        pointsAdded.reset();
+        pointsDeleted.reset();
+        reallocations.reset();
+        failedModifications.reset();
+        latency.reset();
+    }
+
+    // x вне области определения функции
+    private boolean isOutside(double x) {
+        return x < function.getLeftDomainBorder() - EPS || x > function.getRightDomainBorder() + EPS;
+    }
+
+    // делегирование исходной функции с подсчетом
+
+    public int getPointsCount() { return function.getPointsCount(); }
+    public long getVersion() { return function.getVersion(); }
+    public double getLeftDomainBorder() { return function.getLeftDomainBorder(); }
+    public double getRightDomainBorder() { return function.getRightDomainBorder(); }
+
+    public double getFunctionValue(double x) {
+        evaluations.increment();
+        double y;
+        if (ThreadLocalRandom.current().nextInt(SAMPLE_PERIOD) == 0) { // выборка своя у каждого потока
+            long start = System.nanoTime();
+            y = function.getFunctionValue(x);
+            latency.record(System.nanoTime() - start);
+        } else {
+            y = function.getFunctionValue(x);
+        }
+        if (y != y && isOutside(x)) // NaN: проверяем, не из-за области ли определения
+            outsideDomain.increment();
+        return y;
+    }
+
+    public void evaluate(double[] xValues, double[] out) {
+        batchEvaluations.increment();
+        function.evaluate(xValues, out);
+        evaluations.add(xValues.length);
+        int outside = 0;
+        for (int i = 0; i < xValues.length; i++)
+            if (out[i] != out[i] && isOutside(xValues[i]))
+                outside++;
+        outsideDomain.add(outside);
+    }
+
+    public double integrate(double a, double b) { return function.integrate(a, b); }
+    public double derivative(double x) { return function.derivative(x); }
+    public ImmutableTabulatedFunction snapshot() { return function.snapshot(); }
+    public void forEachPoint(DoubleBinaryConsumer action) { function.forEachPoint(action); }
+    public PointCursor cursor() { return function.cursor(); }
+
+    public FunctionPoint getPoint(int index) {
+        pointReads.increment();
+        return function.getPoint(index);
+    }
+
+    public double getPointX(int index) {
+        pointReads.increment();
+        return function.getPointX(index);
+    }
+
+    public double getPointY(int index) {
+        pointReads.increment();
+        return function.getPointY(index);
+    }
+
+    public void setPoint(int index, FunctionPoint point) throws InappropriateFunctionPointException {
+        try {
+            function.setPoint(index, point);
+        } catch (RuntimeException e) {
+            failedModifications.increment();
+            throw e;
+        }
+        pointWrites.increment();
+    }
+
+    public void setPointX(int index, double x) throws InappropriateFunctionPointException {
+        try {
+            function.setPointX(index, x);
+        } catch (RuntimeException e) {
+            failedModifications.increment();
+            throw e;
+        }
+        pointWrites.increment();
+    }
+
+    public void setPointY(int index, double y) {
+        try {
+            function.setPointY(index, y);
+        } catch (RuntimeException e) {
+            failedModifications.increment();
+            throw e;
+        }
+        pointWrites.increment();
+    }
+
+    public void addPoint(FunctionPoint point) throws InappropriateFunctionPointException {
+        int capacity = function instanceof ArrayTabulatedFunction ? ((ArrayTabulatedFunction) function).getCapacity() : 0;
+        try {
+            function.addPoint(point);
+        } catch (RuntimeException e) {
+            failedModifications.increment();
+            throw e;
+        }
+        pointsAdded.increment();
+        if (function instanceof ArrayTabulatedFunction && ((ArrayTabulatedFunction) function).getCapacity() != capacity)
+            reallocations.increment();
+    }
+
+    public void deletePoint(int index) {
+        try {
+            function.deletePoint(index);
+        } catch (RuntimeException e) {
+            failedModifications.increment();
+            throw e;
+        }
+        pointsDeleted.increment();
+    }
+}
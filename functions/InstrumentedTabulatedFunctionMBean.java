@@ -0,0 +1,22 @@
+package functions;
+
+// счетчики InstrumentedTabulatedFunction, доступные через JMX
+public interface InstrumentedTabulatedFunctionMBean {
+    long getEvaluations();          // вычисленных значений (getFunctionValue и точки evaluate)
+    long getBatchEvaluations();     // вызовов evaluate
+    long getOutsideDomain();        // x вне области определения (результат NaN)
+    long getPointReads();           // обращений к точкам по индексу
+    long getPointWrites();          // изменений точек (setPoint, setPointX, setPointY)
+    long getPointsAdded();          // добавленных точек
+    long getPointsDeleted();        // удаленных точек
+    long getReallocations();        // добавлений, потребовавших перераспределения массивов
+    long getFailedModifications();  // изменений, отклоненных исключением
+    int getPointsCount();           // текущее количество точек
+
+    long getLatencySamples();       // замеров времени вычисления значения
+    long getLatencyP50Nanos();      // медиана времени вычисления значения, нс
+    long getLatencyP99Nanos();      // 99-й процентиль, нс
+    long getLatencyMaxNanos();      // максимум (с точностью до корзины), нс
+
+    void reset();                   // обнуление счетчиков
+}
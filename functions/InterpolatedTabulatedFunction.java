@@ -0,0 +1,284 @@
+package functions;
+
+// табулированная функция с выбираемым способом интерполяции между точками (см. InterpolationMethod);
+// точки хранятся в исходной функции (ArrayTabulatedFunction, LinkedListTabulatedFunction и т.п.),
+// а здесь - их копия в массивах и коэффициенты кубических многочленов на каждом отрезке
+//
+// коэффициенты вычисляются один раз за O(n) при первом обращении; изменение Y или X точки
+// через этот объект обновляет их локально, если способ это допускает (монотонная интерполяция),
+// добавление и удаление точки - пересчетом при следующем обращении; изменения точек
+// исходной функции в обход этого объекта замечаются по ее номеру версии (getVersion),
+// для функций без номера версии нужно вызвать invalidate()
+//
+// у естественного сплайна (CUBIC_SPLINE) локального обновления нет: матрица, обратная
+// к трехдиагональной системе для вторых производных, заполнена целиком, поэтому изменение
+// одной точки меняет коэффициенты всех отрезков (влияние убывает примерно в 3.7 раза на
+// узел, но не обращается в ноль), и точное обновление стоит столько же, сколько решение
+// системы прогонкой за O(n); поэтому любое изменение точки пересчитывает сплайн целиком
+// при следующем обращении
+//
+// пока у исходной функции меньше 2 точек (например, опустевшее окно RingBufferTabulatedFunction),
+// область определения не задана, и значения, производные и интегралы равны NaN
+public class InterpolatedTabulatedFunction implements TabulatedFunction {
+    private static final double EPS = Math.ulp(1.0); // машинный эпсилон для сравнения double
+
+    private final TabulatedFunction function;   // исходная функция, хранящая точки
+    private InterpolationMethod method;         // способ интерполяции
+
+    private double[] xs;        // копия X точек
+    private double[] ys;        // копия Y точек
+    private double[] tangents;  // производные в узлах
+    private double[] c2;        // коэффициенты при t^2 на отрезках, t = x - xs[i]
+    private double[] c3;        // коэффициенты при t^3 на отрезках
+    private PrefixSums integrals; // интегралы многочленов по отрезкам
+    private int count;          // количество точек в копии
+    private boolean valid;      // копия и коэффициенты соответствуют исходной функции
+    private long version;       // номер версии исходной функции, по которой сделана копия
+
+    public InterpolatedTabulatedFunction(TabulatedFunction function, InterpolationMethod method) {
+        if (function == null || method == null)
+            throw new IllegalArgumentException("функция и способ интерполяции должны быть заданы");
+        this.function = function;
+        this.method = method;
+    }
+
+    public TabulatedFunction getFunction() { return function; } // исходная функция
+    public InterpolationMethod getInterpolationMethod() { return method; } // текущий способ интерполяции
+
+    public void setInterpolationMethod(InterpolationMethod method) {
+        if (method == null)
+            throw new IllegalArgumentException("способ интерполяции должен быть задан");
+        this.method = method;
+        valid = false;
+    }
+
+    // сброс коэффициентов: они будут вычислены заново при следующем обращении
+    public void invalidate() { valid = false; }
+
+    // копия и коэффициенты соответствуют текущим точкам исходной функции
+    private boolean isValid() { return valid && function.getVersion() == version; }
+
+    // копирование точек и вычисление коэффициентов за O(n)
+    private void rebuild() {
+        count = function.getPointsCount();
+        if (xs == null || xs.length < count) {
+            xs = new double[count];
+            ys = new double[count];
+            tangents = new double[count];
+            c2 = new double[count];
+            c3 = new double[count];
+        }
+        PointCursor cursor = function.cursor();
+        for (int i = 0; cursor.next(); i++) {
+            xs[i] = cursor.getX();
+            ys[i] = cursor.getY();
+        }
+        version = function.getVersion();
+        valid = true;
+        if (count < 2)
+            return; // область определения не задана - коэффициентов нет
+        method.computeTangents(xs, ys, count, tangents);
+        integrals = null;
+        updateCoefficients(0, count - 2);
+        double[] segments = new double[count - 1];
+        for (int i = 0; i < count - 1; i++)
+            segments[i] = polynomialIntegral(i, xs[i + 1] - xs[i]);
+        integrals = new PrefixSums(segments, count - 1);
+    }
+
+    // пересчет коэффициентов отрезков from..to по значениям и производным в узлах
+    private void updateCoefficients(int from, int to) {
+        for (int i = Math.max(from, 0); i <= Math.min(to, count - 2); i++) {
+            double h = xs[i + 1] - xs[i];
+            double slope = (ys[i + 1] - ys[i]) / h;
+            c2[i] = (3 * slope - 2 * tangents[i] - tangents[i + 1]) / h;
+            c3[i] = (tangents[i] + tangents[i + 1] - 2 * slope) / (h * h);
+            if (integrals != null)
+                integrals.set(i, polynomialIntegral(i, h));
+        }
+    }
+
+    // интеграл многочлена отрезка i от xs[i] до xs[i] + t
+    private double polynomialIntegral(int i, double t) {
+        return t * (ys[i] + t * (tangents[i] / 2 + t * (c2[i] / 3 + t * c3[i] / 4)));
+    }
+
+    // обновление после изменения точки index (количество точек прежнее);
+    // before - номер версии исходной функции до изменения
+    private void pointChanged(int index, long before) {
+        if (!valid || before != version || count < 2) {
+            valid = false; // копия устарела еще до этого изменения или коэффициентов нет
+            return;
+        }
+        xs[index] = function.getPointX(index);
+        ys[index] = function.getPointY(index);
+        if (method.updateTangents(xs, ys, count, tangents, index)) {
+            // изменились производные в index-1..index+1 и на концах
+            updateCoefficients(index - 2, index + 1);
+            updateCoefficients(0, 0);
+            updateCoefficients(count - 2, count - 2);
+            version = function.getVersion();
+        } else {
+            valid = false;
+        }
+    }
+
+    public int getPointsCount() { return function.getPointsCount(); } // вернуть количество точек
+    public long getVersion() { return function.getVersion(); }        // номер версии точек исходной функции
+    public double getLeftDomainBorder() { return function.getLeftDomainBorder(); } // левая граница
+    public double getRightDomainBorder() { return function.getRightDomainBorder(); } // правая граница
+
+    // получение значения функции в точке x выбранным способом интерполяции
+    public double getFunctionValue(double x) {
+        if (method == InterpolationMethod.LINEAR)
+            return function.getFunctionValue(x); // исходная функция интерполирует линейно
+        if (!isValid())
+            rebuild();
+        if (count < 2 || x < xs[0] - EPS || x > xs[count - 1] + EPS)
+            return Double.NaN; // область определения не задана или x вне ее
+
+        return valueAt(SegmentSearch.locate(xs, count, 0, x), x);
+    }
+
+    // вычисление значений в точках массива xValues; для возрастающих подряд x
+    // поиск отрезка продолжается с предыдущего
+    public void evaluate(double[] xValues, double[] out) {
+        if (method == InterpolationMethod.LINEAR) {
+            function.evaluate(xValues, out);
+            return;
+        }
+        if (out.length < xValues.length)
+            throw new IllegalArgumentException("массив результатов короче массива x");
+        if (!isValid())
+            rebuild();
+        if (count < 2) {
+            for (int k = 0; k < xValues.length; k++)
+                out[k] = Double.NaN; // область определения не задана
+            return;
+        }
+
+        double left = xs[0] - EPS;
+        double right = xs[count - 1] + EPS;
+        int i = 0;                       // отрезок для предыдущего x
+        double prevX = Double.NaN;       // предыдущий x из области определения
+        for (int k = 0; k < xValues.length; k++) {
+            double x = xValues[k];
+            if (x < left || x > right) {
+                out[k] = Double.NaN; // x вне области определения
+                continue;
+            }
+            if (x >= prevX) {
+                int steps = 0;
+                while (i < count - 1 && x >= xs[i + 1] + EPS && steps++ < SegmentSearch.MAX_WALK)
+                    i++;
+                if (i < count - 1 && x >= xs[i + 1] + EPS)
+                    i = SegmentSearch.locate(xs, count, 0, x); // отрезок далеко
+            } else {
+                i = SegmentSearch.locate(xs, count, 0, x);
+            }
+            out[k] = valueAt(i, x);
+            prevX = x;
+        }
+    }
+
+    // значение в x по найденному отрезку i (правила совпадения с узлами те же, что у линейной)
+    private double valueAt(int i, double x) {
+        double x1 = xs[i];
+        if (i == count - 1) {
+            if (Math.abs(x - x1) < EPS)
+                return ys[i]; // совпадение с последней точкой
+            return Double.NaN;
+        }
+        if (Math.abs(x - x1) < EPS)
+            return ys[i]; // совпадение с узлом
+        if (x <= x1 - EPS)
+            return Double.NaN; // x левее первого отрезка ровно на EPS
+
+        double t = x - x1; // кубический многочлен по схеме Горнера
+        return ys[i] + t * (tangents[i] + t * (c2[i] + t * c3[i]));
+    }
+
+    // интеграл интерполянта от a до b за O(log n): суммы интегралов целых отрезков
+    // хранятся в дереве Фенвика и обновляются вместе с коэффициентами
+    public double integrate(double a, double b) {
+        if (method == InterpolationMethod.LINEAR)
+            return function.integrate(a, b);
+        if (a > b)
+            return -integrate(b, a);
+        if (!isValid())
+            rebuild();
+        if (count < 2 || !(a >= xs[0] - EPS && b <= xs[count - 1] + EPS))
+            return Double.NaN; // область определения не задана или граница вне ее
+
+        int i = segment(a);
+        int j = segment(b);
+        if (i == j)
+            return polynomialIntegral(i, b - xs[i]) - polynomialIntegral(i, a - xs[i]);
+        return integrals.sum(j) + polynomialIntegral(j, b - xs[j])
+                - integrals.sum(i) - polynomialIntegral(i, a - xs[i]);
+    }
+
+    // производная интерполянта в точке x
+    public double derivative(double x) {
+        if (method == InterpolationMethod.LINEAR)
+            return function.derivative(x);
+        if (!isValid())
+            rebuild();
+        if (count < 2 || !(x >= xs[0] - EPS && x <= xs[count - 1] + EPS))
+            return Double.NaN; // область определения не задана или x вне ее
+
+        int i = segment(x);
+        double t = x - xs[i];
+        return tangents[i] + t * (2 * c2[i] + 3 * t * c3[i]);
+    }
+
+    // отрезок, содержащий x из области определения (правый край относится к последнему отрезку)
+    private int segment(double x) {
+        return Math.min(SegmentSearch.locate(xs, count, 0, x), count - 2);
+    }
+
+    // производная интерполянта в узле index
+    public double getTangent(int index) {
+        if (index < 0 || index >= function.getPointsCount())
+            throw new FunctionPointIndexOutOfBoundsException("Индекс" + index + "выходит за границы");
+        if (!isValid())
+            rebuild();
+        return count < 2 ? Double.NaN : tangents[index];
+    }
+
+    public FunctionPoint getPoint(int index) { return function.getPoint(index); }
+    public double getPointX(int index) { return function.getPointX(index); }
+    public double getPointY(int index) { return function.getPointY(index); }
+    public void forEachPoint(DoubleBinaryConsumer action) { function.forEachPoint(action); }
+    public PointCursor cursor() { return function.cursor(); }
+
+    // изменения точек передаются исходной функции, затем обновляются коэффициенты
+
+    public void setPoint(int index, FunctionPoint point) throws InappropriateFunctionPointException {
+        long before = function.getVersion();
+        function.setPoint(index, point);
+        pointChanged(index, before);
+    }
+
+    public void setPointX(int index, double x) throws InappropriateFunctionPointException {
+        long before = function.getVersion();
+        function.setPointX(index, x);
+        pointChanged(index, before);
+    }
+
+    public void setPointY(int index, double y) {
+        long before = function.getVersion();
+        function.setPointY(index, y);
+        pointChanged(index, before);
+    }
+
+    public void addPoint(FunctionPoint point) throws InappropriateFunctionPointException {
+        function.addPoint(point);
+        valid = false; // сдвинулись индексы - пересчет при следующем обращении
+    }
+
+    public void deletePoint(int index) {
+        function.deletePoint(index);
+        valid = false;
+    }
+}
@@ -0,0 +1,106 @@
+package functions;
+
+// способ интерполяции между точками табулированной функции; кубические способы
+// задаются производными (касательными) в узлах, по которым на каждом отрезке
+// строится кубический многочлен Эрмита
+public enum InterpolationMethod {
+    // кусочно-линейная интерполяция (как в getFunctionValue самих табулированных функций)
+    LINEAR {
+        void computeTangents(double[] xs, double[] ys, int count, double[] tangents) {
+            for (int i = 0; i < count - 1; i++)
+                tangents[i] = (ys[i + 1] - ys[i]) / (xs[i + 1] - xs[i]);
+            tangents[count - 1] = tangents[count - 2];
+        }
+    },
+
+    // естественный кубический сплайн: непрерывная вторая производная, нулевая на концах;
+    // коэффициенты находятся решением трехдиагональной системы за O(n), а изменение любой
+    // точки влияет на весь сплайн (обратная матрица системы заполнена целиком), поэтому
+    // локального обновления нет и сплайн пересчитывается целиком
+    CUBIC_SPLINE {
+        void computeTangents(double[] xs, double[] ys, int count, double[] tangents) {
+            // вторые производные M[i] в узлах, M[0] = M[count-1] = 0; прогонка по внутренним узлам
+            double[] m = new double[count];
+            double[] c = new double[count]; // прогоночные коэффициенты
+            for (int i = 1; i < count - 1; i++) {
+                double h0 = xs[i] - xs[i - 1];
+                double h1 = xs[i + 1] - xs[i];
+                double rhs = 6 * ((ys[i + 1] - ys[i]) / h1 - (ys[i] - ys[i - 1]) / h0);
+                double diag = 2 * (h0 + h1) - h0 * c[i - 1];
+                c[i] = h1 / diag;
+                m[i] = (rhs - h0 * m[i - 1]) / diag;
+            }
+            for (int i = count - 3; i >= 1; i--)
+                m[i] -= c[i] * m[i + 1];
+
+            // перевод вторых производных в касательные для формы Эрмита
+            for (int i = 0; i < count - 1; i++) {
+                double h = xs[i + 1] - xs[i];
+                tangents[i] = (ys[i + 1] - ys[i]) / h - h * (2 * m[i] + m[i + 1]) / 6;
+            }
+            double h = xs[count - 1] - xs[count - 2];
+            tangents[count - 1] = (ys[count - 1] - ys[count - 2]) / h + h * (m[count - 2] + 2 * m[count - 1]) / 6;
+        }
+    },
+
+    // монотонная кубическая интерполяция Эрмита (Фрич-Карлсон, в варианте PCHIP):
+    // не дает выбросов между точками и сохраняет монотонность данных; касательная в узле
+    // зависит только от соседних точек, поэтому изменение точки пересчитывается локально
+    MONOTONE_CUBIC {
+        void computeTangents(double[] xs, double[] ys, int count, double[] tangents) {
+            for (int i = 0; i < count; i++)
+                tangents[i] = monotoneTangent(xs, ys, count, i);
+        }
+
+        boolean updateTangents(double[] xs, double[] ys, int count, double[] tangents, int index) {
+            for (int i = Math.max(index - 1, 0); i <= Math.min(index + 1, count - 1); i++)
+                tangents[i] = monotoneTangent(xs, ys, count, i);
+            // касательные на концах зависят от двух крайних отрезков
+            tangents[0] = monotoneTangent(xs, ys, count, 0);
+            tangents[count - 1] = monotoneTangent(xs, ys, count, count - 1);
+            return true;
+        }
+    };
+
+    // вычисление касательных во всех count узлах
+    abstract void computeTangents(double[] xs, double[] ys, int count, double[] tangents);
+
+    // обновление касательных после изменения точки index без изменения количества точек;
+    // возвращает false, если нужен полный пересчет
+    boolean updateTangents(double[] xs, double[] ys, int count, double[] tangents, int index) {
+        return false;
+    }
+
+    // касательная монотонной интерполяции в узле i
+    private static double monotoneTangent(double[] xs, double[] ys, int count, int i) {
+        if (count == 2)
+            return (ys[1] - ys[0]) / (xs[1] - xs[0]);
+        if (i == 0)
+            return edgeTangent(xs[1] - xs[0], xs[2] - xs[1],
+                    (ys[1] - ys[0]) / (xs[1] - xs[0]), (ys[2] - ys[1]) / (xs[2] - xs[1]));
+        if (i == count - 1)
+            return edgeTangent(xs[i] - xs[i - 1], xs[i - 1] - xs[i - 2],
+                    (ys[i] - ys[i - 1]) / (xs[i] - xs[i - 1]), (ys[i - 1] - ys[i - 2]) / (xs[i - 1] - xs[i - 2]));
+
+        double h0 = xs[i] - xs[i - 1];
+        double h1 = xs[i + 1] - xs[i];
+        double d0 = (ys[i] - ys[i - 1]) / h0;
+        double d1 = (ys[i + 1] - ys[i]) / h1;
+        if (d0 * d1 <= 0)
+            return 0; // экстремум или участок постоянства
+        // взвешенное гармоническое среднее наклонов соседних отрезков
+        double w1 = 2 * h1 + h0;
+        double w2 = h1 + 2 * h0;
+        return (w1 + w2) / (w1 / d0 + w2 / d1);
+    }
+
+    // касательная на конце по двум крайним отрезкам (h0, d0 - крайний, h1, d1 - следующий)
+    private static double edgeTangent(double h0, double h1, double d0, double d1) {
+        double d = ((2 * h0 + h1) * d0 - h0 * d1) / (h0 + h1);
+        if (Math.signum(d) != Math.signum(d0))
+            return 0;
+        if (Math.signum(d0) != Math.signum(d1) && Math.abs(d) > 3 * Math.abs(d0))
+            return 3 * d0;
+        return d;
+    }
+}
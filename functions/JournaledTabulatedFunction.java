@@ -0,0 +1,161 @@
+package functions;
+
+// декоратор табулированной функции с ограниченным журналом изменений: каждое изменение
+// точек через декоратор записывается как номер версии и диапазон затронутых индексов,
+// поэтому потребитель, запомнивший номер версии (getVersion) при прошлом чтении,
+// может получить changesSince(версия) и пересчитать только затронутые отрезки
+//
+// журнал хранит не больше capacity последних изменений в кольцевом буфере; если нужные
+// изменения уже вытеснены, функция менялась в обход декоратора (номер версии исходной
+// функции изменился без записи в журнал) или одно изменение затронуло несколько точек,
+// changesSince возвращает null - потребителю нужен полный пересчет
+public class JournaledTabulatedFunction implements TabulatedFunction {
+    // одно изменение точек: индексы from..to отсчитываются в функции после изменения
+    public static final class Change {
+        private final long version;  // номер версии функции после изменения
+        private final int from;      // первый затронутый индекс
+        private final int to;        // последний затронутый индекс
+        private final int shift;     // сдвиг индексов правее to: +1 - точка добавлена, -1 - удалена, 0 - нет
+
+        Change(long version, int from, int to, int shift) {
+            this.version = version;
+            this.from = from;
+            this.to = to;
+            this.shift = shift;
+        }
+
+        public long getVersion() { return version; }
+        public int getFrom() { return from; }
+        public int getTo() { return to; }
+        public int getShift() { return shift; }
+
+        public String toString() {
+            return "v" + version + " [" + from + ", " + to + "]" + (shift > 0 ? " +1" : shift < 0 ? " -1" : "");
+        }
+    }
+
+    private static final Change[] NO_CHANGES = new Change[0];
+
+    private final TabulatedFunction function; // исходная функция
+    private final Change[] journal;           // кольцевой буфер изменений
+    private int head;                         // позиция самого старого изменения
+    private int count;                        // количество изменений в журнале
+    private long baseVersion;                 // версия, начиная с которой журнал полон
+    private long lastVersion;                 // версия после последнего записанного изменения
+
+    // журнал из не больше чем capacity последних изменений функции function
+    public JournaledTabulatedFunction(TabulatedFunction function, int capacity) {
+        if (function == null)
+            throw new IllegalArgumentException("функция должна быть задана");
+        if (capacity < 1)
+            throw new IllegalArgumentException("размер журнала должен быть положительным");
+        this.function = function;
+        journal = new Change[capacity];
+        baseVersion = lastVersion = function.getVersion();
+    }
+
+    public TabulatedFunction getFunction() { return function; } // исходная функция
+
+    // изменения после версии version от старых к новым (пустой массив, если их не было)
+    // или null, если журнал их уже не содержит
+    public Change[] changesSince(long version) {
+        long current = function.getVersion();
+        if (version == current)
+            return NO_CHANGES; // функция не менялась
+        if (current != lastVersion || version < baseVersion || version > current)
+            return null; // изменения в обход журнала, вытеснены или версия неизвестна
+
+        int skip = 0;
+        while (skip < count && journal[(head + skip) % journal.length].getVersion() <= version)
+            skip++;
+        Change[] result = new Change[count - skip];
+        for (int i = 0; i < result.length; i++)
+            result[i] = journal[(head + skip + i) % journal.length];
+        return result;
+    }
+
+    // запись изменения; before - номер версии исходной функции до него
+    private void record(long before, int from, int to, int shift) {
+        long version = function.getVersion();
+        if (version == before)
+            return; // функция не изменилась
+        if (before != lastVersion) { // были изменения в обход журнала - он больше не полон
+            count = 0;
+            baseVersion = before;
+        }
+        if (version != before + 1) { // изменение не сводится к одной точке (например, вытеснение
+            count = 0;               // точек окна RingBufferTabulatedFunction) - журнал начинается заново
+            baseVersion = lastVersion = version;
+            return;
+        }
+        if (count == journal.length) { // журнал заполнен - вытесняем самое старое изменение
+            baseVersion = journal[head].getVersion();
+            head = (head + 1) % journal.length;
+            count--;
+        }
+        journal[(head + count) % journal.length] = new Change(version, from, to, shift);
+        count++;
+        lastVersion = version;
+    }
+
+    // индекс точки с абсциссой x (бинарный поиск по X)
+    private int indexOf(double x) {
+        int lo = 0, hi = function.getPointsCount() - 1;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (function.getPointX(mid) < x)
+                lo = mid + 1;
+            else
+                hi = mid;
+        }
+        return lo;
+    }
+
+    public long getVersion() { return function.getVersion(); }
+    public int getPointsCount() { return function.getPointsCount(); }
+    public double getLeftDomainBorder() { return function.getLeftDomainBorder(); }
+    public double getRightDomainBorder() { return function.getRightDomainBorder(); }
+    public double getFunctionValue(double x) { return function.getFunctionValue(x); }
+    public void evaluate(double[] xValues, double[] out) { function.evaluate(xValues, out); }
+    public double integrate(double a, double b) { return function.integrate(a, b); }
+    public double derivative(double x) { return function.derivative(x); }
+    public ImmutableTabulatedFunction snapshot() { return function.snapshot(); }
+    public void forEachPoint(DoubleBinaryConsumer action) { function.forEachPoint(action); }
+    public PointCursor cursor() { return function.cursor(); }
+    public FunctionPoint getPoint(int index) { return function.getPoint(index); }
+    public double getPointX(int index) { return function.getPointX(index); }
+    public double getPointY(int index) { return function.getPointY(index); }
+
+    // изменения передаются исходной функции и записываются в журнал
+
+    public void setPoint(int index, FunctionPoint point) throws InappropriateFunctionPointException {
+        long before = function.getVersion();
+        function.setPoint(index, point);
+        record(before, index, index, 0);
+    }
+
+    public void setPointX(int index, double x) throws InappropriateFunctionPointException {
+        long before = function.getVersion();
+        function.setPointX(index, x);
+        record(before, index, index, 0);
+    }
+
+    public void setPointY(int index, double y) {
+        long before = function.getVersion();
+        function.setPointY(index, y);
+        record(before, index, index, 0);
+    }
+
+    public void addPoint(FunctionPoint point) throws InappropriateFunctionPointException {
+        long before = function.getVersion();
+        function.addPoint(point);
+        int index = indexOf(point.getX());
+        record(before, index, index, 1);
+    }
+
+    public void deletePoint(int index) {
+        long before = function.getVersion();
+        function.deletePoint(index);
+        record(before, index, index, -1);
+    }
+}
@@ -0,0 +1,69 @@
+package functions;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// гистограмма задержек в наносекундах с логарифмическими корзинами (как в HdrHistogram):
+// значения от 2^k до 2^(k+1) делятся на SUB_BUCKETS равных корзин, поэтому относительная
+// погрешность квантилей не больше 1/SUB_BUCKETS при фиксированной памяти и записи за O(1)
+public final class LatencyHistogram {
+    private static final int SUB_BITS = 3;                  // log2 числа корзин на степень двойки
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int BUCKETS = (64 - SUB_BITS + 1) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS); // количество значений в корзинах
+
+    // номер корзины значения: значения меньше SUB_BUCKETS - каждое в своей корзине,
+    // дальше - старшие SUB_BITS + 1 битов значения
+    private static int bucket(long value) {
+        if (value < SUB_BUCKETS)
+            return (int) Math.max(value, 0);
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) ((value >>> shift) - SUB_BUCKETS);
+    }
+
+    // верхняя граница значений корзины
+    private static long bucketLimit(int bucket) {
+        if (bucket < SUB_BUCKETS)
+            return bucket;
+        int shift = bucket / SUB_BUCKETS - 1;
+        long first = (long) (bucket % SUB_BUCKETS + SUB_BUCKETS) << shift;
+        return first + (1L << shift) - 1;
+    }
+
+    // запись одного значения
+    public void record(long nanos) {
+        counts.incrementAndGet(bucket(nanos));
+    }
+
+    // количество записанных значений
+    public long getCount() {
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++)
+            total += counts.get(i);
+        return total;
+    }
+
+    // значение, не меньше которого оказалась доля quantile записанных значений (0 < quantile <= 1),
+    // с точностью до корзины; 0, если значений нет
+    public long getValueAtQuantile(double quantile) {
+        long total = getCount();
+        if (total == 0)
+            return 0;
+        long rank = (long) Math.ceil(quantile * total);
+        if (rank < 1)
+            rank = 1;
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank)
+                return bucketLimit(i);
+        }
+        return bucketLimit(BUCKETS - 1);
+    }
+
+    // очистка гистограммы
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++)
+            counts.set(i, 0);
+    }
+}
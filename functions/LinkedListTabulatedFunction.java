@@ -11,6 +11,7 @@ public class LinkedListTabulatedFunction implements TabulatedFunction {
 
     private final FunctionNode head = new FunctionNode(null); // фиктивный узел (голова)
     private int pointsCount;                                    // текущее количество точек
+    private long version;                                       // номер версии точек, растет при каждом изменении
     private static final double EPS = Math.ulp(1.0);           // машинный эпсилон для сравнения double
 
     // поля для кэширования последнего использованного узла
@@ -45,6 +46,14 @@ public class LinkedListTabulatedFunction implements TabulatedFunction {
             addNodeToTail().point = new FunctionPoint(leftX + i * step, values[i]); // создаем точки с заданными Y
     }
 
+    // создание по массивам X и Y первых count точек (упорядочены по X, проверки не выполняются)
+    LinkedListTabulatedFunction(double[] xs, double[] ys, int count) {
+        head.next = head.prev = head;  // инициализация пустого кольцевого списка
+        pointsCount = 0;
+        for (int i = 0; i < count; i++)
+            addNodeToTail().point = new FunctionPoint(xs[i], ys[i]);
+    }
+
     // добавление узла в конец списка
     private FunctionNode addNodeToTail() {
         FunctionNode newNode = new FunctionNode(new FunctionPoint(0, 0)); // создаем новый узел
@@ -150,26 +159,99 @@ public class LinkedListTabulatedFunction implements TabulatedFunction {
     }
 
     public int getPointsCount() { return pointsCount; } // вернуть количество точек
+    public long getVersion() { return version; }        // номер версии точек
     public double getLeftDomainBorder() { return head.next.point.getX(); }  // левая граница области определения
     public double getRightDomainBorder() { return head.prev.point.getX(); } // правая граница области определения
 
-    // получение значения функции в точке x (линейная интерполяция)
+    // получение значения функции в точке x (линейная интерполяция); чтение не меняет
+    // полей объекта (в том числе кэша индекса), поэтому одновременные чтения без
+    // изменений безопасны; поиск идет от ближайшего к x конца списка
     public double getFunctionValue(double x) {
-        if (x < getLeftDomainBorder() - EPS || x > getRightDomainBorder() + EPS)
+        double left = getLeftDomainBorder();
+        double right = getRightDomainBorder();
+        if (x < left - EPS || x > right + EPS)
             return Double.NaN; // x вне области определения
 
-        FunctionNode node = head.next;
-        while (node.next != head) { // проход по списку
-            double x1 = node.point.getX();
-            double x2 = node.next.point.getX();
-            if (Math.abs(x - x1) < EPS) return node.point.getY(); // совпадение с узлом
-            if (x > x1 - EPS && x < x2 + EPS) // линейная интерполяция
-                return node.point.getY() + (node.next.point.getY() - node.point.getY()) * (x - x1) / (x2 - x1);
-            node = node.next;
+        return valueAt(findSegmentNode(x - left <= right - x ? head.next : head.prev, x), x);
+    }
+
+    // вычисление значения функции в точках массива xValues с записью результатов в out;
+    // поиск каждого следующего отрезка идет от узла, найденного для предыдущего x (локальная
+    // переменная вызова, а не поле), поэтому отсортированный массив обрабатывается
+    // за один проход по списку O(n + m)
+    public void evaluate(double[] xValues, double[] out) {
+        if (out.length < xValues.length)
+            throw new IllegalArgumentException("массив результатов короче массива x");
+
+        double left = getLeftDomainBorder() - EPS;
+        double right = getRightDomainBorder() + EPS;
+        FunctionNode node = head.next; // узел отрезка для предыдущего x
+        for (int k = 0; k < xValues.length; k++) {
+            double x = xValues[k];
+            if (x < left || x > right) {
+                out[k] = Double.NaN; // x вне области определения
+                continue;
+            }
+            node = findSegmentNode(node, x);
+            out[k] = valueAt(node, x);
         }
-        if (Math.abs(x - head.prev.point.getX()) < EPS)
-            return head.prev.point.getY(); // совпадение с последним узлом
-        return Double.NaN; // значение вне диапазона
+    }
+
+    // значение функции в x по узлу, начинающему отрезок
+    private double valueAt(FunctionNode node, double x) {
+        if (node.next == head) {
+            if (Math.abs(x - node.point.getX()) < EPS)
+                return node.point.getY(); // совпадение с последним узлом
+            return Double.NaN; // значение вне диапазона
+        }
+
+        double x1 = node.point.getX();
+        double x2 = node.next.point.getX();
+        if (Math.abs(x - x1) < EPS) return node.point.getY(); // совпадение с узлом
+        if (x <= x1 - EPS) return Double.NaN; // x левее первого отрезка ровно на EPS
+        // линейная интерполяция
+        return node.point.getY() + (node.next.point.getY() - node.point.getY()) * (x - x1) / (x2 - x1);
+    }
+
+    // поиск узла, начинающего отрезок с x: первый узел, для которого x < next.x + EPS
+    // (последний узел, если такого нет); идем от узла start в сторону x, поэтому
+    // для близких подряд идущих x поиск занимает O(1); поля объекта не меняются
+    private FunctionNode findSegmentNode(FunctionNode start, double x) {
+        FunctionNode node = start;
+        if (node.next == head || x < node.next.point.getX() + EPS) {
+            // двигаемся влево, пока предыдущий отрезок тоже содержит x
+            while (node.prev != head && x < node.point.getX() + EPS)
+                node = node.prev;
+        } else {
+            // двигаемся вправо до первого подходящего отрезка
+            do {
+                node = node.next;
+            } while (node.next != head && x >= node.next.point.getX() + EPS);
+        }
+        return node;
+    }
+
+    // обход всех точек по ссылкам списка за O(n) без обращений по индексу
+    public void forEachPoint(DoubleBinaryConsumer action) {
+        for (FunctionNode node = head.next; node != head; node = node.next)
+            action.accept(node.point.getX(), node.point.getY());
+    }
+
+    // курсор, хранящий текущий узел: каждый шаг - переход по ссылке next, O(1)
+    public PointCursor cursor() {
+        return new PointCursor() {
+            private FunctionNode node = head; // текущий узел (голова - перед первой точкой)
+
+            public boolean next() {
+                if (node.next == head)
+                    return false;
+                node = node.next;
+                return true;
+            }
+            public double getX() { return node.point.getX(); }
+            public double getY() { return node.point.getY(); }
+            public void reset() { node = head; }
+        };
     }
 
     public FunctionPoint getPoint(int index) {
@@ -183,6 +265,7 @@ public class LinkedListTabulatedFunction implements TabulatedFunction {
                 (node.next != head && x >= node.next.point.getX()))
             throw new InappropriateFunctionPointException("Х вне порядка"); // проверка порядка X
         node.point = new FunctionPoint(point); // установка новой точки
+        version++; // новая версия точек
     }
 
     public double getPointX(int index) { return getNodeByIndex(index).point.getX(); } // получить X точки
@@ -193,11 +276,15 @@ public class LinkedListTabulatedFunction implements TabulatedFunction {
                 (node.next != head && x >= node.next.point.getX()))
             throw new InappropriateFunctionPointException("Х вне порядка"); // проверка порядка X
         node.point.setX(x); // установить новое X
+        version++; // новая версия точек
     }
 
     public double getPointY(int index) { return getNodeByIndex(index).point.getY(); } // получить Y точки
 
-    public void setPointY(int index, double y) { getNodeByIndex(index).point.setY(y); } // установить Y
+    public void setPointY(int index, double y) {
+        getNodeByIndex(index).point.setY(y); // установить Y
+        version++; // новая версия точек
+    }
 
     // добавление новой точки с проверкой на дублирование X
     public void addPoint(FunctionPoint point) throws InappropriateFunctionPointException {
@@ -222,9 +309,13 @@ public class LinkedListTabulatedFunction implements TabulatedFunction {
             node.prev = newNode;
         }
         pointsCount++; // обновляем количество точек
+        lastAccessedNode = null; // индексы после вставки сдвинулись - сбрасываем кэш
+        lastAccessedIndex = -1;
+        version++; // новая версия точек
     }
 
     public void deletePoint(int index) {
         deleteNodeByIndex(index); // удаление точки через приватный метод
+        version++; // новая версия точек
     }
 }
@@ -0,0 +1,185 @@
+package functions;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// табулированная функция только для чтения, отображенная в память из двоичного файла:
+// точки не копируются в кучу, значения вычисляются прямо по отображенным страницам,
+// поэтому открытие файла занимает O(1), а несколько JVM делят один страничный кэш
+//
+// формат файла (все числа little-endian):
+//   0  int    сигнатура 'TABF'
+//   4  int    версия формата (1)
+//   8  int    флаги: бит 0 - равномерная сетка, массив X не хранится
+//   12 int    резерв (0)
+//   16 long   количество точек
+//   24 double левая граница области определения
+//   32 double правая граница области определения
+//   40 double[] X точек (только для неравномерной сетки), затем double[] Y точек
+public class MappedTabulatedFunction implements TabulatedFunction {
+    private static final int MAGIC = 0x46424154;       // 'TABF' в порядке little-endian
+    private static final int VERSION = 1;
+    private static final int FLAG_UNIFORM = 1;
+    private static final int HEADER_SIZE = 40;
+
+    private final DoubleBuffer xs;       // X точек или null для равномерной сетки
+    private final DoubleBuffer ys;       // Y точек
+    private final int pointsCount;       // количество точек
+    private final double left;           // левая граница
+    private final double right;          // правая граница
+    private final double step;           // шаг равномерной сетки или 0
+    private final SegmentSearch.Points points = new SegmentSearch.Points() { // доступ к точкам для SegmentSearch
+        double x(int i) { return MappedTabulatedFunction.this.x(i); }
+        double y(int i) { return MappedTabulatedFunction.this.y(i); }
+    };
+
+    // открытие файла и отображение его в память
+    public MappedTabulatedFunction(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_SIZE)
+                throw new IOException("файл " + file + " слишком короткий для табулированной функции");
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            if (header.getInt(0) != MAGIC)
+                throw new IOException("файл " + file + " не является табулированной функцией");
+            if (header.getInt(4) != VERSION)
+                throw new IOException("неподдерживаемая версия формата: " + header.getInt(4));
+            boolean uniform = (header.getInt(8) & FLAG_UNIFORM) != 0;
+            long count = header.getLong(16);
+            left = header.getDouble(24);
+            right = header.getDouble(32);
+
+            // каждый массив отображается одним буфером, поэтому его размер ограничен 2 ГБ
+            if (count < 2 || count > Integer.MAX_VALUE / Double.BYTES)
+                throw new IOException("недопустимое количество точек: " + count);
+            if (!(left < right))
+                throw new IOException("левая граница >= правая граница");
+            long arrayBytes = count * Double.BYTES;
+            long expectedSize = HEADER_SIZE + (uniform ? arrayBytes : 2 * arrayBytes);
+            if (channel.size() < expectedSize)
+                throw new IOException("файл " + file + " обрезан: " + channel.size() + " из " + expectedSize + " байт");
+
+            pointsCount = (int) count;
+            long offset = HEADER_SIZE;
+            if (uniform) {
+                xs = null;
+                step = (right - left) / (pointsCount - 1);
+            } else {
+                xs = map(channel, offset, arrayBytes);
+                offset += arrayBytes;
+                step = 0;
+            }
+            ys = map(channel, offset, arrayBytes);
+        }
+    }
+
+    // отображение участка файла как массива double
+    private static DoubleBuffer map(FileChannel channel, long offset, long size) throws IOException {
+        return channel.map(FileChannel.MapMode.READ_ONLY, offset, size).order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer();
+    }
+
+    // запись табулированной функции в файл; если X всех точек совпадают с равномерной сеткой
+    // (побитово, как ее строят конструкторы), массив X не записывается
+    public static void write(TabulatedFunction function, Path file) throws IOException {
+        int count = function.getPointsCount();
+        double leftX = function.getLeftDomainBorder();
+        double rightX = function.getRightDomainBorder();
+        double gridStep = (rightX - leftX) / (count - 1);
+        boolean uniform = true;
+        for (int i = 0; i < count && uniform; i++)
+            uniform = function.getPointX(i) == leftX + i * gridStep;
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(MAGIC).putInt(VERSION).putInt(uniform ? FLAG_UNIFORM : 0).putInt(0);
+            buffer.putLong(count).putDouble(leftX).putDouble(rightX);
+            if (!uniform) {
+                for (int i = 0; i < count; i++) {
+                    if (buffer.remaining() < Double.BYTES)
+                        flush(channel, buffer);
+                    buffer.putDouble(function.getPointX(i));
+                }
+            }
+            for (int i = 0; i < count; i++) {
+                if (buffer.remaining() < Double.BYTES)
+                    flush(channel, buffer);
+                buffer.putDouble(function.getPointY(i));
+            }
+            flush(channel, buffer);
+        }
+    }
+
+    // сброс накопленных байтов буфера в канал
+    private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining())
+            channel.write(buffer);
+        buffer.clear();
+    }
+
+    // X точки по номеру без проверки индекса
+    private double x(int i) {
+        return xs != null ? xs.get(i) : left + i * step;
+    }
+
+    // Y точки по номеру без проверки индекса
+    private double y(int i) {
+        return ys.get(i);
+    }
+
+    public int getPointsCount() { return pointsCount; } // вернуть количество точек
+    public double getLeftDomainBorder() { return x(0); } // левая граница области определения
+    public double getRightDomainBorder() { return x(pointsCount - 1); } // правая граница области определения
+
+    // получение значения функции в точке x (линейная интерполяция)
+    public double getFunctionValue(double x) {
+        return SegmentSearch.value(points, pointsCount, step, x);
+    }
+
+    // вычисление значения функции в точках массива xValues с записью результатов в out;
+    // для возрастающих подряд x поиск отрезка продолжается с предыдущего
+    public void evaluate(double[] xValues, double[] out) {
+        SegmentSearch.evaluate(points, pointsCount, step, xValues, out);
+    }
+
+    // проверка корректности индекса
+    private void checkIndex(int index) {
+        if (index < 0 || index >= pointsCount)
+            throw new FunctionPointIndexOutOfBoundsException("Индекс" + index + "выходит за границы");
+    }
+
+    public FunctionPoint getPoint(int index) {
+        checkIndex(index);
+        return new FunctionPoint(x(index), ys.get(index)); // вернуть копию точки
+    }
+
+    public double getPointX(int index) { checkIndex(index); return x(index); } // получить X точки
+    public double getPointY(int index) { checkIndex(index); return ys.get(index); } // получить Y точки
+
+    // функция отображена только для чтения - изменение точек не поддерживается
+
+    public void setPoint(int index, FunctionPoint point) {
+        throw new UnsupportedOperationException("функция только для чтения");
+    }
+
+    public void setPointX(int index, double x) {
+        throw new UnsupportedOperationException("функция только для чтения");
+    }
+
+    public void setPointY(int index, double y) {
+        throw new UnsupportedOperationException("функция только для чтения");
+    }
+
+    public void addPoint(FunctionPoint point) {
+        throw new UnsupportedOperationException("функция только для чтения");
+    }
+
+    public void deletePoint(int index) {
+        throw new UnsupportedOperationException("функция только для чтения");
+    }
+}
@@ -0,0 +1,154 @@
+package functions;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+
+// массив double вне кучи: данные лежат в прямых (direct) буферах по CHUNK элементов,
+// поэтому сборщик мусора их не просматривает и не копирует, а размер массива не ограничен
+// 2 ГБ одного буфера; последний блок занимает ровно столько, сколько нужно по емкости
+//
+// память освобождается явно методом free(); после этого обращаться к массиву нельзя;
+// если sun.misc.Unsafe.invokeCleaner недоступен, free() только отдает буферы сборщику
+// мусора, и память возвращается при их сборке, а не сразу
+final class OffHeapDoubleArray {
+    private static final int CHUNK_SHIFT = 24;              // 2^24 элементов (128 МБ) в блоке
+    private static final int CHUNK = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK - 1;
+    private static final Method INVOKE_CLEANER;            // sun.misc.Unsafe.invokeCleaner или null
+    private static final Object UNSAFE;
+
+    static {
+        Method invokeCleaner = null;
+        Object unsafe = null;
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field field = unsafeClass.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            unsafe = field.get(null);
+            invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // явное освобождение недоступно - память вернет сборщик мусора вместе с буфером
+        }
+        INVOKE_CLEANER = invokeCleaner;
+        UNSAFE = unsafe;
+    }
+
+    private DoubleBuffer[] chunks; // блоки данных
+    private ByteBuffer[] memory;   // выделенные прямые буферы блоков (для освобождения)
+    private long capacity;         // общая емкость в элементах
+
+    OffHeapDoubleArray(long capacity) {
+        chunks = new DoubleBuffer[0];
+        memory = new ByteBuffer[0];
+        grow(capacity);
+    }
+
+    long capacity() { return capacity; }
+
+    double get(long index) {
+        return chunks[(int) (index >>> CHUNK_SHIFT)].get((int) index & CHUNK_MASK);
+    }
+
+    void set(long index, double value) {
+        chunks[(int) (index >>> CHUNK_SHIFT)].put((int) index & CHUNK_MASK, value);
+    }
+
+    // увеличение емкости до newCapacity: копируется только неполный последний блок
+    void grow(long newCapacity) {
+        if (newCapacity <= capacity)
+            return;
+        int count = (int) ((newCapacity + CHUNK - 1) >>> CHUNK_SHIFT);
+        DoubleBuffer[] grown = new DoubleBuffer[count];
+        ByteBuffer[] grownMemory = new ByteBuffer[count];
+        System.arraycopy(chunks, 0, grown, 0, chunks.length);
+        System.arraycopy(memory, 0, grownMemory, 0, memory.length);
+        int last = chunks.length - 1;
+        if (last >= 0 && chunks[last].capacity() < CHUNK) { // неполный блок заменяется большим
+            grownMemory[last] = allocate(chunkSize(last, newCapacity));
+            grown[last] = view(grownMemory[last]);
+            grown[last].put(0, chunks[last], 0, chunks[last].capacity());
+        }
+        for (int i = chunks.length; i < count; i++) {
+            grownMemory[i] = allocate(chunkSize(i, newCapacity));
+            grown[i] = view(grownMemory[i]);
+        }
+        ByteBuffer replaced = last >= 0 && grownMemory[last] != memory[last] ? memory[last] : null;
+        chunks = grown;
+        memory = grownMemory;
+        capacity = newCapacity;
+        if (replaced != null)
+            free(replaced); // старый блок больше недоступен через chunks
+    }
+
+    // размер блока i при общей емкости total
+    private static int chunkSize(int i, long total) {
+        return (int) Math.min(CHUNK, total - ((long) i << CHUNK_SHIFT));
+    }
+
+    private static ByteBuffer allocate(int size) {
+        return ByteBuffer.allocateDirect(size * Double.BYTES).order(ByteOrder.nativeOrder());
+    }
+
+    private static DoubleBuffer view(ByteBuffer buffer) {
+        return buffer.asDoubleBuffer();
+    }
+
+    // копирование length элементов с позиции from на позицию to; участки могут перекрываться
+    // (сдвиг при вставке и удалении), копирование идет кусками в пределах блоков
+    void move(long from, long to, long length) {
+        if (length <= 0 || from == to)
+            return;
+        if (to < from) {
+            long done = 0;
+            while (done < length) {
+                long src = from + done, dst = to + done;
+                int piece = (int) Math.min(length - done,
+                        Math.min(CHUNK - (src & CHUNK_MASK), CHUNK - (dst & CHUNK_MASK)));
+                copy(src, dst, piece);
+                done += piece;
+            }
+        } else { // сдвиг вправо - с конца, чтобы не затереть еще не скопированное
+            long left = length;
+            while (left > 0) {
+                long srcEnd = from + left, dstEnd = to + left; // концы (не включительно)
+                int piece = (int) Math.min(left,
+                        Math.min(((srcEnd - 1) & CHUNK_MASK) + 1, ((dstEnd - 1) & CHUNK_MASK) + 1));
+                copy(srcEnd - piece, dstEnd - piece, piece);
+                left -= piece;
+            }
+        }
+    }
+
+    // копирование куска, целиком лежащего в одном блоке и источника, и приемника;
+    // при общем блоке результат такой, как если бы данные копировались через промежуточный буфер
+    private void copy(long src, long dst, int length) {
+        DoubleBuffer source = chunks[(int) (src >>> CHUNK_SHIFT)];
+        DoubleBuffer target = chunks[(int) (dst >>> CHUNK_SHIFT)];
+        target.put((int) dst & CHUNK_MASK, source, (int) src & CHUNK_MASK, length);
+    }
+
+    // освобождение памяти всех блоков; ссылки на блоки сбрасываются до освобождения,
+    // поэтому дальнейшие обращения дают исключение, а не чтение освобожденной памяти
+    void free() {
+        ByteBuffer[] released = memory;
+        chunks = new DoubleBuffer[0];
+        memory = new ByteBuffer[0];
+        capacity = 0;
+        for (ByteBuffer buffer : released)
+            free(buffer);
+    }
+
+    // немедленное освобождение памяти прямого буфера (если JVM это позволяет, иначе - при сборке мусора)
+    private static void free(ByteBuffer buffer) {
+        if (INVOKE_CLEANER == null)
+            return;
+        try {
+            INVOKE_CLEANER.invoke(UNSAFE, buffer);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // память вернет сборщик мусора
+        }
+    }
+}
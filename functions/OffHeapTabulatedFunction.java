@@ -0,0 +1,237 @@
+package functions;
+
+// табулированная функция для очень больших таблиц: X и Y точек хранятся вне кучи
+// (OffHeapDoubleArray), поэтому сотни миллионов точек не увеличивают паузы сборщика мусора
+//
+// время жизни памяти задается явно: close() освобождает ее, после чего любые
+// обращения к функции выбрасывают IllegalStateException; close() не должен выполняться
+// одновременно с обращениями из других потоков
+//
+// немедленное освобождение идет через sun.misc.Unsafe.invokeCleaner; если JVM его
+// не дает (нет модуля jdk.unsupported, запрет отражения), close() только закрывает
+// функцию, а память буферов возвращается позже - когда их соберет сборщик мусора
+//
+// прямые буферы ограничены параметром JVM -XX:MaxDirectMemorySize, который по умолчанию
+// равен максимальному размеру кучи (-Xmx); точка занимает 16 байт, поэтому, например,
+// 10^8 точек (1.6 ГБ) при куче меньше 1.6 ГБ дают OutOfMemoryError "Cannot reserve direct
+// buffer memory", пока предел не задан явно, например -XX:MaxDirectMemorySize=4g
+//
+// память выделяется прямыми ByteBuffer, а не через MemorySegment и Arena (java.lang.foreign):
+// в JDK 17, на который рассчитан пакет, этот API есть только как инкубаторный модуль
+// jdk.incubator.foreign, который требует --add-modules и менялся от версии к версии,
+// а окончательным стал в JDK 22; ByteBuffer работает на всех версиях, но ограничен
+// 2 ГБ на буфер (поэтому OffHeapDoubleArray делит массив на блоки) и не имеет явного
+// освобождения, отсюда invokeCleaner; при переходе на JDK 22+ хранение можно заменить
+// на MemorySegment из Arena.ofShared() без изменения остального класса
+public class OffHeapTabulatedFunction implements TabulatedFunction, AutoCloseable {
+    private static final double EPS = Math.ulp(1.0); // машинный эпсилон для сравнения double
+
+    private final OffHeapDoubleArray xs;   // абсциссы точек функции (по возрастанию)
+    private final OffHeapDoubleArray ys;   // ординаты точек функции
+    private int pointsCount;               // текущее количество точек
+    private double step;                   // шаг равномерной сетки по X или 0
+    private long version;                  // номер версии точек, растет при каждом изменении
+    private boolean closed;                // память освобождена
+    private final SegmentSearch.Points points = new SegmentSearch.Points() { // доступ к точкам для SegmentSearch
+        double x(int i) { return xs.get(i); }
+        double y(int i) { return ys.get(i); }
+    };
+
+    // конструктор 1: равномерное распределение точек по X
+    public OffHeapTabulatedFunction(double leftX, double rightX, int pointsCount) {
+        if (leftX >= rightX)
+            throw new IllegalArgumentException("левая граница >= правая граница");
+        if (pointsCount < 2)
+            throw new IllegalArgumentException("Кол-во точек < 2");
+
+        this.pointsCount = pointsCount;
+        xs = new OffHeapDoubleArray(pointsCount);
+        ys = new OffHeapDoubleArray(pointsCount); // прямые буферы обнулены - Y=0 у всех точек
+        step = (rightX - leftX) / (pointsCount - 1); // шаг по X между точками
+        for (int i = 0; i < pointsCount; i++)
+            xs.set(i, leftX + i * step);
+    }
+
+    // конструктор 2: по массиву Y-значений
+    public OffHeapTabulatedFunction(double leftX, double rightX, double[] values) {
+        this(leftX, rightX, values.length);
+        for (int i = 0; i < values.length; i++)
+            ys.set(i, values[i]); // заданные Y
+    }
+
+    // конструктор 3: копия точек другой табулированной функции
+    public OffHeapTabulatedFunction(TabulatedFunction function) {
+        pointsCount = function.getPointsCount();
+        if (pointsCount < 2)
+            throw new IllegalArgumentException("Кол-во точек < 2");
+        xs = new OffHeapDoubleArray(pointsCount);
+        ys = new OffHeapDoubleArray(pointsCount);
+        PointCursor cursor = function.cursor();
+        for (int i = 0; i < pointsCount && cursor.next(); i++) {
+            xs.set(i, cursor.getX());
+            ys.set(i, cursor.getY());
+        }
+        for (int i = 1; i < pointsCount; i++) {
+            if (!(xs.get(i) > xs.get(i - 1))) { // порядок X (и отсутствие NaN)
+                close(); // память копии не нужна
+                throw new IllegalArgumentException("X точек не возрастают");
+            }
+        }
+        step = SegmentSearch.uniformStep(points, pointsCount);
+    }
+
+    // освобождение памяти точек (сразу или, без invokeCleaner, при сборке мусора);
+    // повторный вызов ничего не делает
+    public void close() {
+        if (closed)
+            return;
+        closed = true;
+        xs.free();
+        ys.free();
+    }
+
+    public boolean isClosed() { return closed; }
+
+    private void checkOpen() {
+        if (closed)
+            throw new IllegalStateException("функция закрыта");
+    }
+
+    public int getPointsCount() { checkOpen(); return pointsCount; } // вернуть текущее количество точек
+    public long getVersion() { checkOpen(); return version; }        // номер версии точек
+    public double getLeftDomainBorder() { checkOpen(); return xs.get(0); } // левая граница области определения
+    public double getRightDomainBorder() { checkOpen(); return xs.get(pointsCount - 1); } // правая граница
+
+    // емкость - сколько точек помещается без перераспределения памяти
+    public long getCapacity() { checkOpen(); return xs.capacity(); }
+
+    // получение значения функции в точке x (линейная интерполяция)
+    public double getFunctionValue(double x) {
+        checkOpen();
+        return SegmentSearch.value(points, pointsCount, step, x);
+    }
+
+    // вычисление значения функции в точках массива xValues с записью результатов в out;
+    // для возрастающих подряд x поиск отрезка продолжается с предыдущего
+    public void evaluate(double[] xValues, double[] out) {
+        checkOpen();
+        SegmentSearch.evaluate(points, pointsCount, step, xValues, out);
+    }
+
+    // проверка корректности индекса
+    private void checkIndex(int index) {
+        checkOpen();
+        if (index < 0 || index >= pointsCount)
+            throw new FunctionPointIndexOutOfBoundsException("Индекс" + index + "выходит за границы");
+    }
+
+    // проверка, что x лежит строго между соседями точки index
+    private boolean isInOrder(int index, double x) {
+        return (index == 0 || x > xs.get(index - 1)) &&
+                (index == pointsCount - 1 || x < xs.get(index + 1));
+    }
+
+    // обход всех точек без создания объектов точек
+    public void forEachPoint(DoubleBinaryConsumer action) {
+        checkOpen();
+        for (int i = 0; i < pointsCount; i++)
+            action.accept(xs.get(i), ys.get(i));
+    }
+
+    // курсор по индексам точек
+    public PointCursor cursor() {
+        checkOpen();
+        return new PointCursor() {
+            private int index = -1; // индекс текущей точки
+
+            public boolean next() { return ++index < getPointsCount(); }
+            public double getX() { checkOpen(); return xs.get(index); }
+            public double getY() { checkOpen(); return ys.get(index); }
+            public void reset() { index = -1; }
+        };
+    }
+
+    public FunctionPoint getPoint(int index) {
+        checkIndex(index);
+        return new FunctionPoint(xs.get(index), ys.get(index)); // вернуть копию точки
+    }
+
+    public void setPoint(int index, FunctionPoint point) throws InappropriateFunctionPointException {
+        checkIndex(index);
+        if (!isInOrder(index, point.getX()))
+            throw new InappropriateFunctionPointException("X вне порядка"); // проверка порядка X
+        if (point.getX() != xs.get(index))
+            step = 0; // сетка больше не равномерна
+        xs.set(index, point.getX()); // заменить точку
+        ys.set(index, point.getY());
+        version++; // новая версия точек
+    }
+
+    public double getPointX(int index) { checkIndex(index); return xs.get(index); } // получить X точки
+    public double getPointY(int index) { checkIndex(index); return ys.get(index); } // получить Y точки
+
+    public void setPointX(int index, double x) throws InappropriateFunctionPointException {
+        checkIndex(index);
+        if (!isInOrder(index, x))
+            throw new InappropriateFunctionPointException("Х вне порядка"); // проверка порядка X
+        if (x != xs.get(index))
+            step = 0; // сетка больше не равномерна
+        xs.set(index, x); // установить новое X
+        version++; // новая версия точек
+    }
+
+    public void setPointY(int index, double y) {
+        checkIndex(index);
+        ys.set(index, y); // установить новое Y на месте
+        version++; // новая версия точек
+    }
+
+    // добавление новой точки: сдвиг хвоста копированием блоков памяти, емкость растет
+    // в полтора раза, поэтому последовательное добавление стоит O(1) копирований в среднем
+    public void addPoint(FunctionPoint point) throws InappropriateFunctionPointException {
+        checkOpen();
+        double x = point.getX();
+        int lo = 0, hi = pointsCount; // место вставки - первая точка с X >= x
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (xs.get(mid) < x)
+                lo = mid + 1;
+            else
+                hi = mid;
+        }
+        int index = lo;
+        // точка с близким X может быть только среди соседей места вставки
+        if ((index > 0 && Math.abs(xs.get(index - 1) - x) < EPS) ||
+                (index < pointsCount && Math.abs(xs.get(index) - x) < EPS))
+            throw new InappropriateFunctionPointException("дубликат Х"); // проверка на дублирование X
+        if (pointsCount == Integer.MAX_VALUE)
+            throw new IllegalStateException("достигнуто максимальное количество точек");
+
+        if (pointsCount == xs.capacity()) { // расширение памяти при необходимости
+            long capacity = Math.min(xs.capacity() + (xs.capacity() >> 1) + 1, Integer.MAX_VALUE);
+            xs.grow(capacity);
+            ys.grow(capacity);
+        }
+        xs.move(index, index + 1, pointsCount - index); // сдвинуть точки вправо
+        ys.move(index, index + 1, pointsCount - index);
+        xs.set(index, x); // вставить точку
+        ys.set(index, point.getY());
+        pointsCount++;
+        step = 0; // сетка больше не равномерна
+        version++; // новая версия точек
+    }
+
+    // удаление точки
+    public void deletePoint(int index) {
+        checkIndex(index);
+        if (pointsCount <= 2)
+            throw new IllegalStateException("удаление невозможно: кол-во точек < 3"); // минимальное количество точек
+
+        xs.move(index + 1, index, pointsCount - index - 1); // сдвинуть оставшиеся точки влево
+        ys.move(index + 1, index, pointsCount - index - 1);
+        if (index != 0 && index != pointsCount - 1)
+            step = 0; // удаление крайней точки сохраняет равномерность сетки
+        pointsCount--;
+        version++; // новая версия точек
+    }
+}
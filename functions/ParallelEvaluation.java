@@ -0,0 +1,219 @@
+package functions;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// параллельное вычисление табулированной функции на больших наборах x:
+// набор делится на участки, которые вычисляются задачами ForkJoinPool, а результаты
+// побитово совпадают с последовательными вызовами getFunctionValue
+//
+// функции разбиваются на три группы:
+// - Array без кэша наклонов, LinkedList, SkipList, Concurrent, Immutable, OffHeap, Mapped,
+//   Compressed и RingBuffer (не меньше 2 точек), а также Journaled над любой из них,
+//   интерполируют так же, как их снимок (ImmutableTabulatedFunction из function.snapshot()),
+//   поэтому участки вычисляются по общему снимку; снимок копирует точки за O(n) в вызывающем
+//   потоке, без копирования читаются только Immutable (снимок - она сама) и Concurrent
+//   (снимок делит массивы ее текущего состояния); сравниваются точные классы, наследник
+//   может считать по-своему
+// - Array с кэшем наклонов (ячейки кэша меняются только с NaN на одно и то же значение),
+//   Interpolated, Instrumented (счетчики - LongAdder) и Journaled над функцией из первых
+//   двух групп читаются из нескольких потоков одновременно: их evaluate не меняет общего
+//   состояния или меняет его безопасно, пока точки не меняются; участки вычисляются
+//   собственным evaluate функции по блокам из BLOCK значений x: блок копируется в буфер
+//   задачи, поэтому память сверх out не зависит от размера набора; первый участок
+//   вычисляется в вызывающем потоке до запуска остальных, чтобы ленивые структуры
+//   (коэффициенты сплайна) строились один раз и без гонок
+// - остальные (таблицы реестра с кэшем значений, наследники, функции других типов)
+//   вычисляются последовательно в вызывающем потоке: об их поведении при одновременных
+//   чтениях ничего не известно
+public final class ParallelEvaluation {
+    private static final int MIN_CHUNK = 1 << 14; // участок, который уже не делится дальше
+    private static final int BLOCK = 1 << 10;      // блок x для собственного evaluate функции
+
+    private ParallelEvaluation() {
+    }
+
+    // вычисление out[i] = function.getFunctionValue(xValues[i]) в общем пуле потоков
+    public static void evaluate(TabulatedFunction function, double[] xValues, double[] out) {
+        evaluate(function, xValues, out, ForkJoinPool.commonPool());
+    }
+
+    // вычисление out[i] = function.getFunctionValue(xValues[i]) в заданном пуле потоков
+    public static void evaluate(TabulatedFunction function, double[] xValues, double[] out, ForkJoinPool pool) {
+        if (out.length < xValues.length)
+            throw new IllegalArgumentException("массив результатов короче массива x");
+
+        if (!isPlainLinear(function)) {
+            if (xValues.length <= MIN_CHUNK || !isConcurrentReadSafe(function))
+                function.evaluate(xValues, out); // делить нечего или нельзя, буфер не нужен
+            else
+                invokeBlocks(function, xValues, out, xValues.length, Double.NaN, 0, pool);
+            return;
+        }
+        ImmutableTabulatedFunction snapshot = function.snapshot();
+        pool.invoke(new Chunk(snapshot, xValues, out, 0, xValues.length, Double.NaN, 0));
+    }
+
+    // выборка функции на сетке: out[i] = function.getFunctionValue(from + i * step)
+    public static void sample(TabulatedFunction function, double from, double step, double[] out) {
+        sample(function, from, step, out, ForkJoinPool.commonPool());
+    }
+
+    // выборка функции на сетке в заданном пуле потоков
+    public static void sample(TabulatedFunction function, double from, double step, double[] out, ForkJoinPool pool) {
+        if (!isPlainLinear(function)) {
+            if (isConcurrentReadSafe(function))
+                invokeBlocks(function, null, out, out.length, from, step, pool);
+            else
+                evaluateBlocks(function, null, out, 0, out.length, from, step);
+            return;
+        }
+        ImmutableTabulatedFunction snapshot = function.snapshot();
+        pool.invoke(new Chunk(snapshot, null, out, 0, out.length, from, step));
+    }
+
+    // вычисляет ли функция значения той же линейной интерполяцией, что и снимок;
+    // сравниваются точные классы: наследник может вычислять значения по-своему
+    private static boolean isPlainLinear(TabulatedFunction function) {
+        Class<?> type = function.getClass();
+        if (type == ArrayTabulatedFunction.class)
+            return !((ArrayTabulatedFunction) function).isSlopeCacheEnabled();
+        if (type == RingBufferTabulatedFunction.class)
+            return function.getPointsCount() >= 2; // окно может быть почти пустым
+        return type == LinkedListTabulatedFunction.class
+                || type == SkipListTabulatedFunction.class
+                || type == ConcurrentTabulatedFunction.class
+                || type == ImmutableTabulatedFunction.class
+                || type == OffHeapTabulatedFunction.class
+                || type == MappedTabulatedFunction.class
+                || type == CompressedTabulatedFunction.class
+                || (type == JournaledTabulatedFunction.class // только передает вызовы, снимок - снимок исходной
+                    && isPlainLinear(((JournaledTabulatedFunction) function).getFunction()));
+    }
+
+    // допускает ли функция одновременные чтения из нескольких потоков (пока точки не меняются);
+    // сравниваются точные классы, у декораторов проверяется и исходная функция
+    private static boolean isConcurrentReadSafe(TabulatedFunction function) {
+        if (isPlainLinear(function))
+            return true;
+        Class<?> type = function.getClass();
+        if (type == ArrayTabulatedFunction.class)
+            return true; // кэш наклонов, см. ArrayTabulatedFunction.isSlopeCacheEnabled
+        if (type == InterpolatedTabulatedFunction.class)
+            return isConcurrentReadSafe(((InterpolatedTabulatedFunction) function).getFunction());
+        if (type == InstrumentedTabulatedFunction.class)
+            return isConcurrentReadSafe(((InstrumentedTabulatedFunction) function).getFunction());
+        if (type == JournaledTabulatedFunction.class)
+            return isConcurrentReadSafe(((JournaledTabulatedFunction) function).getFunction());
+        return false;
+    }
+
+    // вычисление собственным evaluate функции: первый участок - в вызывающем потоке,
+    // остальные - задачами пула; xValues == null означает сетку gridFrom + i * gridStep
+    private static void invokeBlocks(TabulatedFunction function, double[] xValues, double[] out, int length,
+                                     double gridFrom, double gridStep, ForkJoinPool pool) {
+        int first = Math.min(length, MIN_CHUNK);
+        new BlockChunk(function, xValues, out, 0, first, gridFrom, gridStep).compute();
+        if (first < length)
+            pool.invoke(new BlockChunk(function, xValues, out, first, length, gridFrom, gridStep));
+    }
+
+    // задача вычисления участка [from, to); xValues == null означает сетку gridFrom + i * gridStep
+    private static final class Chunk extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final ImmutableTabulatedFunction snapshot;
+        private final double[] xValues;
+        private final double[] out;
+        private final int from;
+        private final int to;
+        private final double gridFrom;
+        private final double gridStep;
+
+        Chunk(ImmutableTabulatedFunction snapshot, double[] xValues, double[] out, int from, int to, double gridFrom, double gridStep) {
+            this.snapshot = snapshot;
+            this.xValues = xValues;
+            this.out = out;
+            this.from = from;
+            this.to = to;
+            this.gridFrom = gridFrom;
+            this.gridStep = gridStep;
+        }
+
+        protected void compute() {
+            if (to - from > MIN_CHUNK) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new Chunk(snapshot, xValues, out, from, mid, gridFrom, gridStep),
+                        new Chunk(snapshot, xValues, out, mid, to, gridFrom, gridStep));
+                return;
+            }
+
+            double[] source = xValues;
+            if (source == null) {
+                // x сетки записываются прямо в out и там же заменяются значениями функции
+                for (int i = from; i < to; i++)
+                    out[i] = gridFrom + i * gridStep;
+                source = out;
+            }
+            snapshot.evaluate(source, from, to, out);
+        }
+    }
+
+    // задача вычисления участка [from, to) собственным evaluate функции по блокам из BLOCK x;
+    // xValues == null означает сетку gridFrom + i * gridStep
+    private static final class BlockChunk extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final TabulatedFunction function;
+        private final double[] xValues;
+        private final double[] out;
+        private final int from;
+        private final int to;
+        private final double gridFrom;
+        private final double gridStep;
+
+        BlockChunk(TabulatedFunction function, double[] xValues, double[] out, int from, int to, double gridFrom, double gridStep) {
+            this.function = function;
+            this.xValues = xValues;
+            this.out = out;
+            this.from = from;
+            this.to = to;
+            this.gridFrom = gridFrom;
+            this.gridStep = gridStep;
+        }
+
+        protected void compute() {
+            if (to - from > MIN_CHUNK) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new BlockChunk(function, xValues, out, from, mid, gridFrom, gridStep),
+                        new BlockChunk(function, xValues, out, mid, to, gridFrom, gridStep));
+                return;
+            }
+
+            evaluateBlocks(function, xValues, out, from, to, gridFrom, gridStep);
+        }
+    }
+
+    // вычисление участка [from, to) собственным evaluate функции по блокам из BLOCK x в текущем потоке;
+    // xValues == null означает сетку gridFrom + i * gridStep
+    private static void evaluateBlocks(TabulatedFunction function, double[] xValues, double[] out, int from, int to,
+                                       double gridFrom, double gridStep) {
+        double[] x = new double[Math.min(BLOCK, to - from)]; // буферы одного участка
+        double[] y = new double[x.length];
+        for (int start = from; start < to; start += x.length) {
+            int length = Math.min(x.length, to - start);
+            if (length < x.length) { // последний неполный блок
+                x = new double[length];
+                y = new double[length];
+            }
+            if (xValues != null) {
+                System.arraycopy(xValues, start, x, 0, length);
+            } else {
+                for (int i = 0; i < length; i++)
+                    x[i] = gridFrom + (start + i) * gridStep;
+            }
+            function.evaluate(x, y);
+            System.arraycopy(y, 0, out, start, length);
+        }
+    }
+}
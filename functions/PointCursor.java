@@ -0,0 +1,19 @@
+package functions;
+
+// курсор для последовательного обхода точек табулированной функции слева направо
+// без создания объектов FunctionPoint; один курсор можно использовать повторно через reset()
+// функция не должна изменяться во время обхода
+public interface PointCursor {
+    //переходит к следующей точке; возвращает false, если точки закончились
+    //первый вызов переходит к точке с индексом 0
+    boolean next();
+
+    //возвращает координату x текущей точки
+    double getX();
+
+    //возвращает координату y текущей точки
+    double getY();
+
+    //возвращает курсор в положение перед первой точкой
+    void reset();
+}
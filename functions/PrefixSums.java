@@ -0,0 +1,56 @@
+package functions;
+
+// дерево Фенвика над массивом слагаемых: изменение слагаемого и сумма первых k
+// слагаемых за O(log n); используется для интегралов по отрезкам табулированных функций
+final class PrefixSums {
+    private final double[] values; // слагаемые
+    private final double[] tree;   // tree[i] - сумма values[i - lowbit(i), i) (нумерация с 1)
+    private final int count;       // количество слагаемых
+    private int updates;           // изменений с последнего построения
+
+    // построение по первым count значениям массива за O(n)
+    PrefixSums(double[] source, int count) {
+        this.count = count;
+        values = new double[count];
+        tree = new double[count + 1];
+        System.arraycopy(source, 0, values, 0, count);
+        build();
+    }
+
+    // пересчет дерева по слагаемым: каждый узел добавляется к родителю один раз
+    private void build() {
+        for (int i = 1; i <= count; i++)
+            tree[i] = values[i - 1];
+        for (int i = 1; i <= count; i++) {
+            int parent = i + (i & -i);
+            if (parent <= count)
+                tree[parent] += tree[i];
+        }
+        updates = 0;
+    }
+
+    int size() { return count; }
+
+    double get(int index) { return values[index]; }
+
+    // замена слагаемого index; приращения накапливают ошибку округления, поэтому
+    // после count изменений дерево строится заново (в среднем O(1) на изменение)
+    void set(int index, double value) {
+        double delta = value - values[index];
+        values[index] = value;
+        if (++updates > count) {
+            build();
+            return;
+        }
+        for (int i = index + 1; i <= count; i += i & -i)
+            tree[i] += delta;
+    }
+
+    // сумма первых k слагаемых
+    double sum(int k) {
+        double result = 0;
+        for (int i = k; i > 0; i -= i & -i)
+            result += tree[i];
+        return result;
+    }
+}
@@ -0,0 +1,169 @@
+package functions;
+
+import java.util.function.DoubleUnaryOperator;
+
+// прореживание табулированных функций с ограниченной погрешностью и адаптивное
+// табулирование произвольной функции
+public final class Resampling {
+    private static final int INITIAL_SEGMENTS = 8;     // начальное разбиение при адаптивном табулировании
+    private static final int DEFAULT_MAX_POINTS = 1 << 20; // ограничение количества точек по умолчанию
+
+    private Resampling() {
+    }
+
+    // прореживание: из точек функции оставляются те, между которыми ломаная отклоняется
+    // от исходной не больше чем на maxError по вертикали (крайние точки сохраняются всегда)
+    //
+    // один проход O(n): от последней сохраненной точки a допустимые наклоны хорды образуют
+    // интервал, который сужается каждой пройденной точкой k до
+    // [(y_k - e - y_a) / (x_k - x_a), (y_k + e - y_a) / (x_k - x_a)]; пока наклон хорды a -> j
+    // внутри интервала, все точки между a и j укладываются в погрешность; как только
+    // хорда выходит из интервала, сохраняется предыдущая точка и она становится новой a
+    //
+    // исходная и прореженная функции линейны между узлами, поэтому максимум отклонения
+    // достигается в отброшенных узлах и не превышает maxError на всей области определения;
+    // точки с NaN или бесконечным Y сохраняются вместе с соседями
+    public static ArrayTabulatedFunction simplify(TabulatedFunction function, double maxError) {
+        if (!(maxError >= 0))
+            throw new IllegalArgumentException("погрешность должна быть неотрицательной");
+
+        int count = function.getPointsCount();
+        double[] xs = new double[count];
+        double[] ys = new double[count];
+        PointCursor cursor = function.cursor();
+        for (int i = 0; i < count && cursor.next(); i++) {
+            xs[i] = cursor.getX();
+            ys[i] = cursor.getY();
+        }
+
+        // сохраненные точки записываются в начало тех же массивов (kept <= j)
+        int kept = 1;
+        int anchor = 0;                  // индекс последней сохраненной точки
+        double lo = Double.NEGATIVE_INFINITY, hi = Double.POSITIVE_INFINITY; // допустимые наклоны
+        for (int j = 1; j < count; j++) {
+            if (!Double.isFinite(ys[j]) || !Double.isFinite(ys[anchor])) {
+                // через NaN или бесконечность хорду не провести: такая точка сохраняется
+                // вместе с соседями и становится новой a
+                if (anchor != j - 1) {
+                    xs[kept] = xs[j - 1];
+                    ys[kept++] = ys[j - 1];
+                }
+                anchor = j;
+                xs[kept] = xs[j];
+                ys[kept++] = ys[j];
+                lo = Double.NEGATIVE_INFINITY;
+                hi = Double.POSITIVE_INFINITY;
+                continue;
+            }
+            double dx = xs[j] - xs[anchor];
+            double slope = (ys[j] - ys[anchor]) / dx;
+            if (!(slope >= lo && slope <= hi)) {
+                // хорда до j недопустима - сохраняем j - 1 и начинаем от нее
+                anchor = j - 1;
+                xs[kept] = xs[anchor];
+                ys[kept++] = ys[anchor];
+                lo = Double.NEGATIVE_INFINITY;
+                hi = Double.POSITIVE_INFINITY;
+                dx = xs[j] - xs[anchor];
+            }
+            lo = Math.max(lo, (ys[j] - maxError - ys[anchor]) / dx);
+            hi = Math.min(hi, (ys[j] + maxError - ys[anchor]) / dx);
+        }
+        if (anchor != count - 1) { // последняя точка могла быть сохранена как нечисловая
+            xs[kept] = xs[count - 1];
+            ys[kept++] = ys[count - 1];
+        }
+
+        double[] resultXs = new double[kept];
+        double[] resultYs = new double[kept];
+        System.arraycopy(xs, 0, resultXs, 0, kept);
+        System.arraycopy(ys, 0, resultYs, 0, kept);
+        return new ArrayTabulatedFunction(resultXs, resultYs, kept, SegmentSearch.uniformStep(resultXs, kept));
+    }
+
+    // адаптивное табулирование function на [leftX, rightX] с погрешностью линейной
+    // интерполяции около maxError (не более 2^20 точек)
+    public static ArrayTabulatedFunction sample(DoubleUnaryOperator function, double leftX, double rightX, double maxError) {
+        return sample(function, leftX, rightX, maxError, DEFAULT_MAX_POINTS);
+    }
+
+    // адаптивное табулирование: отрезок делится пополам, пока значение в его середине или
+    // четвертях отклоняется от хорды больше чем на maxError; отклонение в середине равно
+    // h^2 |f''| / 8, поэтому точки сгущаются там, где велика кривизна; если точек стало
+    // maxPoints, оставшиеся отрезки больше не делятся
+    public static ArrayTabulatedFunction sample(DoubleUnaryOperator function, double leftX, double rightX,
+                                                double maxError, int maxPoints) {
+        if (leftX >= rightX)
+            throw new IllegalArgumentException("левая граница >= правая граница");
+        if (!(maxError > 0))
+            throw new IllegalArgumentException("погрешность должна быть положительной");
+        if (maxPoints < INITIAL_SEGMENTS + 1)
+            throw new IllegalArgumentException("слишком мало точек: " + maxPoints);
+
+        // стек отрезков (a, f(a), b, f(b)); левые половины снимаются первыми,
+        // поэтому точки получаются по возрастанию X
+        double[] stack = new double[4 * 64];
+        int top = 0;
+        double step = (rightX - leftX) / INITIAL_SEGMENTS;
+        double next = function.applyAsDouble(rightX);
+        for (int i = INITIAL_SEGMENTS - 1; i >= 0; i--) { // начальное разбиение, справа налево
+            double a = i == 0 ? leftX : leftX + i * step;
+            double fa = function.applyAsDouble(a);
+            if (top + 4 > stack.length)
+                stack = grow(stack);
+            stack[top++] = a;
+            stack[top++] = fa;
+            stack[top++] = i == INITIAL_SEGMENTS - 1 ? rightX : leftX + (i + 1) * step;
+            stack[top++] = next;
+            next = fa;
+        }
+
+        double[] xs = new double[1024];
+        double[] ys = new double[1024];
+        xs[0] = leftX;
+        ys[0] = next;
+        int count = 1;
+        while (top > 0) {
+            double fb = stack[--top], b = stack[--top], fa = stack[--top], a = stack[--top];
+            double m = (a + b) / 2;
+            // отрезок делится, только пока это возможно и лимит точек не исчерпан
+            // (каждый отрезок в стеке добавит хотя бы одну точку)
+            boolean divisible = m > a && m < b && count + top / 4 + 1 < maxPoints;
+            double fm = divisible ? function.applyAsDouble(m) : 0;
+            if (divisible && !(Math.abs(fm - (fa + fb) / 2) <= maxError
+                    && isClose(function, a, fa, b, fb, (a + m) / 2, maxError)
+                    && isClose(function, a, fa, b, fb, (m + b) / 2, maxError))) {
+                if (top + 8 > stack.length)
+                    stack = grow(stack);
+                stack[top++] = m; stack[top++] = fm; stack[top++] = b; stack[top++] = fb; // правая половина
+                stack[top++] = a; stack[top++] = fa; stack[top++] = m; stack[top++] = fm; // левая половина
+                continue;
+            }
+            if (count == xs.length) { // рост в полтора раза
+                int capacity = xs.length + (xs.length >> 1) + 1;
+                double[] grownXs = new double[capacity];
+                double[] grownYs = new double[capacity];
+                System.arraycopy(xs, 0, grownXs, 0, count);
+                System.arraycopy(ys, 0, grownYs, 0, count);
+                xs = grownXs;
+                ys = grownYs;
+            }
+            xs[count] = b;
+            ys[count++] = fb;
+        }
+        return new ArrayTabulatedFunction(xs, ys, count, SegmentSearch.uniformStep(xs, count));
+    }
+
+    // значение function в x отличается от хорды (a, fa) - (b, fb) не больше чем на maxError
+    private static boolean isClose(DoubleUnaryOperator function, double a, double fa, double b, double fb,
+                                   double x, double maxError) {
+        double chord = fa + (fb - fa) * (x - a) / (b - a);
+        return Math.abs(function.applyAsDouble(x) - chord) <= maxError;
+    }
+
+    private static double[] grow(double[] stack) {
+        double[] grown = new double[stack.length * 2];
+        System.arraycopy(stack, 0, grown, 0, stack.length);
+        return grown;
+    }
+}
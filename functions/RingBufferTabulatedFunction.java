@@ -0,0 +1,317 @@
+package functions;
+
+
+// табулированная функция для временных рядов: точки лежат в кольцевом буфере, поэтому
+// добавление точки правее правой границы (append) и удаление точек слева стоят O(1),
+// а значение функции находится бинарным поиском за O(log n)
+//
+// окно можно ограничить количеством точек (setMaxPoints) и/или шириной по X (setHorizon):
+// после каждого добавления самые левые точки, вышедшие за окно, удаляются автоматически;
+// в отличие от других реализаций функция может содержать меньше 2 точек (в том числе
+// ни одной) - тогда область определения не задана: значения (getFunctionValue, evaluate)
+// равны NaN, а границы, integrate, derivative и snapshot выбрасывают IllegalStateException
+public class RingBufferTabulatedFunction implements TabulatedFunction {
+    private static final double EPS = Math.ulp(1.0); // машинный эпсилон для сравнения double
+
+    private double[] xs;         // абсциссы точек в кольцевом порядке
+    private double[] ys;         // ординаты точек
+    private int mask;            // емкость - 1 (емкость - степень двойки)
+    private int head;            // позиция первой (самой левой) точки в массивах
+    private int pointsCount;     // текущее количество точек
+    private long version;        // номер версии точек, растет при каждом изменении
+    private int maxPoints = Integer.MAX_VALUE;              // ограничение окна по количеству точек
+    private double horizon = Double.POSITIVE_INFINITY;      // ограничение окна по ширине X
+    private final SegmentSearch.Points points = new SegmentSearch.Points() { // доступ к точкам для SegmentSearch
+        double x(int i) { return RingBufferTabulatedFunction.this.x(i); }
+        double y(int i) { return RingBufferTabulatedFunction.this.y(i); }
+    };
+
+    // пустая функция с емкостью не меньше capacity точек
+    public RingBufferTabulatedFunction(int capacity) {
+        if (capacity < 1)
+            throw new IllegalArgumentException("емкость должна быть положительной");
+        int size = Integer.highestOneBit(Math.max(capacity - 1, 1)) << 1; // степень двойки >= capacity
+        xs = new double[size];
+        ys = new double[size];
+        mask = size - 1;
+    }
+
+    // равномерное распределение точек по X с заданными Y (как в других реализациях)
+    public RingBufferTabulatedFunction(double leftX, double rightX, double[] values) {
+        this(checkedCount(leftX, rightX, values)); // параметры проверяются до выделения буфера
+        double step = (rightX - leftX) / (values.length - 1); // шаг по X между точками
+        for (int i = 0; i < values.length; i++) {
+            xs[i] = leftX + i * step;
+            ys[i] = values[i];
+        }
+        pointsCount = values.length;
+    }
+
+    // проверка параметров конструктора по массиву Y; возвращает количество точек
+    private static int checkedCount(double leftX, double rightX, double[] values) {
+        if (leftX >= rightX)
+            throw new IllegalArgumentException("левая граница >= правая граница");
+        if (values.length < 2)
+            throw new IllegalArgumentException("Кол-во точек < 2");
+        return values.length;
+    }
+
+    // позиция в массивах точки с логическим индексом i
+    private int slot(int i) { return (head + i) & mask; }
+
+    private double x(int i) { return xs[(head + i) & mask]; }
+    private double y(int i) { return ys[(head + i) & mask]; }
+
+    // ограничение окна: не больше maxPoints точек (лишние левые точки удаляются сразу)
+    public void setMaxPoints(int maxPoints) {
+        if (maxPoints < 1)
+            throw new IllegalArgumentException("окно должно содержать хотя бы одну точку");
+        this.maxPoints = maxPoints;
+        if (pointsCount > maxPoints)
+            evictFirst(pointsCount - maxPoints);
+    }
+
+    public int getMaxPoints() { return maxPoints; }
+
+    // ограничение окна по X: остаются точки с x >= (правая граница - horizon)
+    public void setHorizon(double horizon) {
+        if (!(horizon >= 0))
+            throw new IllegalArgumentException("ширина окна должна быть неотрицательной");
+        this.horizon = horizon;
+        if (pointsCount > 0)
+            evictBefore(x(pointsCount - 1) - horizon);
+    }
+
+    public double getHorizon() { return horizon; }
+
+    // емкость буфера - сколько точек помещается без перераспределения памяти
+    public int getCapacity() { return mask + 1; }
+
+    // добавление точки правее правой границы за O(1) (в среднем, с учетом роста буфера);
+    // затем из окна удаляются вышедшие за его пределы левые точки
+    public void append(double x, double y) throws InappropriateFunctionPointException {
+        if (pointsCount > 0) {
+            double right = x(pointsCount - 1);
+            if (Math.abs(x - right) < EPS)
+                throw new InappropriateFunctionPointException("дубликат Х"); // проверка на дублирование X
+            if (!(x > right))
+                throw new InappropriateFunctionPointException("X вне порядка"); // append только справа
+        } else if (Double.isNaN(x)) {
+            throw new InappropriateFunctionPointException("X вне порядка");
+        }
+
+        if (pointsCount == maxPoints)
+            evictFirst(1); // окно заполнено - освобождаем место без роста буфера
+        else if (pointsCount == mask + 1)
+            resize((mask + 1) * 2);
+        int s = slot(pointsCount);
+        xs[s] = x;
+        ys[s] = y;
+        pointsCount++;
+        if (horizon != Double.POSITIVE_INFINITY)
+            evictBefore(x - horizon);
+        version++; // новая версия точек
+    }
+
+    // удаление count самых левых точек за O(1)
+    public void evictFirst(int count) {
+        if (count < 0 || count > pointsCount)
+            throw new IllegalArgumentException("нельзя удалить " + count + " точек из " + pointsCount);
+        if (count == 0)
+            return;
+        head = (head + count) & mask;
+        pointsCount -= count;
+        version++; // новая версия точек
+    }
+
+    // удаление всех точек с x < minX; возвращает количество удаленных точек
+    // (каждая точка удаляется один раз, поэтому в среднем O(1) на точку)
+    public int evictBefore(double minX) {
+        int removed = 0;
+        while (removed < pointsCount && x(removed) < minX)
+            removed++;
+        evictFirst(removed);
+        return removed;
+    }
+
+    // перенос точек в массивы емкостью capacity (степень двойки), начиная с позиции 0
+    private void resize(int capacity) {
+        double[] newXs = new double[capacity];
+        double[] newYs = new double[capacity];
+        int first = Math.min(pointsCount, mask + 1 - head); // точки до конца массива
+        System.arraycopy(xs, head, newXs, 0, first);
+        System.arraycopy(ys, head, newYs, 0, first);
+        System.arraycopy(xs, 0, newXs, first, pointsCount - first);
+        System.arraycopy(ys, 0, newYs, first, pointsCount - first);
+        xs = newXs;
+        ys = newYs;
+        mask = capacity - 1;
+        head = 0;
+    }
+
+    public int getPointsCount() { return pointsCount; } // вернуть текущее количество точек
+    public long getVersion() { return version; }        // номер версии точек
+
+    // проверка, что область определения задана (в окне не меньше 2 точек)
+    private void checkDefined() {
+        if (pointsCount < 2)
+            throw new IllegalStateException("в окне меньше 2 точек - область определения не задана");
+    }
+
+    public double getLeftDomainBorder() { checkDefined(); return x(0); } // левая граница области определения
+    public double getRightDomainBorder() { checkDefined(); return x(pointsCount - 1); } // правая граница
+
+    // интеграл, производная и снимок требуют заданной области определения
+    public double integrate(double a, double b) { checkDefined(); return TabulatedFunction.super.integrate(a, b); }
+    public double derivative(double x) { checkDefined(); return TabulatedFunction.super.derivative(x); }
+    public ImmutableTabulatedFunction snapshot() { checkDefined(); return TabulatedFunction.super.snapshot(); }
+
+    // получение значения функции в точке x (линейная интерполяция) бинарным поиском
+    public double getFunctionValue(double x) {
+        if (pointsCount < 2)
+            return Double.NaN; // область определения не задана
+        return SegmentSearch.value(points, pointsCount, 0, x);
+    }
+
+    // вычисление значения функции в точках массива xValues с записью результатов в out;
+    // для возрастающих подряд x поиск отрезка продолжается с предыдущего
+    public void evaluate(double[] xValues, double[] out) {
+        if (pointsCount >= 2) {
+            SegmentSearch.evaluate(points, pointsCount, 0, xValues, out);
+            return;
+        }
+        if (out.length < xValues.length)
+            throw new IllegalArgumentException("массив результатов короче массива x");
+        for (int k = 0; k < xValues.length; k++)
+            out[k] = Double.NaN; // область определения не задана
+    }
+
+    // проверка корректности индекса
+    private void checkIndex(int index) {
+        if (index < 0 || index >= pointsCount)
+            throw new FunctionPointIndexOutOfBoundsException("Индекс" + index + "выходит за границы");
+    }
+
+    // проверка, что x лежит строго между соседями точки index
+    private boolean isInOrder(int index, double x) {
+        return (index == 0 || x > x(index - 1)) &&
+                (index == pointsCount - 1 || x < x(index + 1));
+    }
+
+    // обход всех точек без создания объектов точек
+    public void forEachPoint(DoubleBinaryConsumer action) {
+        for (int i = 0; i < pointsCount; i++)
+            action.accept(x(i), y(i));
+    }
+
+    // курсор по логическим индексам точек
+    public PointCursor cursor() {
+        return new PointCursor() {
+            private int index = -1; // индекс текущей точки
+
+            public boolean next() { return ++index < pointsCount; }
+            public double getX() { return x(index); }
+            public double getY() { return y(index); }
+            public void reset() { index = -1; }
+        };
+    }
+
+    public FunctionPoint getPoint(int index) {
+        checkIndex(index);
+        return new FunctionPoint(x(index), y(index)); // вернуть копию точки
+    }
+
+    public void setPoint(int index, FunctionPoint point) throws InappropriateFunctionPointException {
+        checkIndex(index);
+        if (!isInOrder(index, point.getX()))
+            throw new InappropriateFunctionPointException("X вне порядка"); // проверка порядка X
+        xs[slot(index)] = point.getX(); // заменить точку
+        ys[slot(index)] = point.getY();
+        version++; // новая версия точек
+    }
+
+    public double getPointX(int index) { checkIndex(index); return x(index); } // получить X точки
+    public double getPointY(int index) { checkIndex(index); return y(index); } // получить Y точки
+
+    public void setPointX(int index, double x) throws InappropriateFunctionPointException {
+        checkIndex(index);
+        if (!isInOrder(index, x))
+            throw new InappropriateFunctionPointException("Х вне порядка"); // проверка порядка X
+        xs[slot(index)] = x; // установить новое X
+        version++; // новая версия точек
+    }
+
+    public void setPointY(int index, double y) {
+        checkIndex(index);
+        ys[slot(index)] = y; // установить новое Y
+        version++; // новая версия точек
+    }
+
+    // добавление точки: правее правой границы - через append за O(1), иначе - вставка
+    // со сдвигом меньшей из двух частей буфера
+    public void addPoint(FunctionPoint point) throws InappropriateFunctionPointException {
+        double x = point.getX();
+        if (pointsCount == 0 || x > x(pointsCount - 1) - EPS) {
+            append(x, point.getY());
+            return;
+        }
+
+        int lo = 0, hi = pointsCount; // место вставки - первая точка с X >= x
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (x(mid) < x)
+                lo = mid + 1;
+            else
+                hi = mid;
+        }
+        int index = lo;
+        // точка с близким X может быть только среди соседей места вставки
+        if ((index > 0 && Math.abs(x(index - 1) - x) < EPS) || Math.abs(x(index) - x) < EPS)
+            throw new InappropriateFunctionPointException("дубликат Х"); // проверка на дублирование X
+
+        if (pointsCount == mask + 1)
+            resize((mask + 1) * 2);
+        if (index < pointsCount - index) { // левая часть короче - сдвигаем ее влево
+            head = (head - 1) & mask;
+            for (int i = 0; i < index; i++) {
+                xs[slot(i)] = x(i + 1);
+                ys[slot(i)] = y(i + 1);
+            }
+        } else { // сдвигаем правую часть вправо
+            for (int i = pointsCount; i > index; i--) {
+                xs[slot(i)] = x(i - 1);
+                ys[slot(i)] = y(i - 1);
+            }
+        }
+        xs[slot(index)] = x; // вставить точку
+        ys[slot(index)] = point.getY();
+        pointsCount++;
+        if (pointsCount > maxPoints)
+            evictFirst(pointsCount - maxPoints);
+        if (horizon != Double.POSITIVE_INFINITY)
+            evictBefore(x(pointsCount - 1) - horizon);
+        version++; // новая версия точек
+    }
+
+    // удаление точки: удаление первой точки - O(1), иначе сдвигается меньшая часть буфера
+    public void deletePoint(int index) {
+        checkIndex(index);
+        if (pointsCount <= 2)
+            throw new IllegalStateException("удаление невозможно: кол-во точек < 3"); // минимальное количество точек
+
+        if (index < pointsCount - 1 - index) { // левая часть короче - сдвигаем ее вправо
+            for (int i = index; i > 0; i--) {
+                xs[slot(i)] = x(i - 1);
+                ys[slot(i)] = y(i - 1);
+            }
+            head = (head + 1) & mask;
+        } else {
+            for (int i = index; i < pointsCount - 1; i++) {
+                xs[slot(i)] = x(i + 1);
+                ys[slot(i)] = y(i + 1);
+            }
+        }
+        pointsCount--;
+        version++; // новая версия точек
+    }
+}
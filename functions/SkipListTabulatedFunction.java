@@ -0,0 +1,321 @@
+package functions;
+
+public class SkipListTabulatedFunction implements TabulatedFunction {
+    // узел индексируемого списка с пропусками
+    private static class SkipNode {
+        FunctionPoint point;     // точка функции
+        SkipNode prev;           // ссылка на предыдущий узел нижнего уровня (голова для первого узла)
+        final SkipNode[] next;   // ссылки на следующие узлы по уровням
+        final int[] width;       // сколько узлов нижнего уровня перепрыгивает ссылка next[l]
+        SkipNode(FunctionPoint p, int level) {
+            point = p;
+            next = new SkipNode[level];
+            width = new int[level];
+        }
+    }
+
+    private static final int MAX_LEVEL = 32;                // максимальное количество уровней
+    private static final double EPS = Math.ulp(1.0);       // машинный эпсилон для сравнения double
+
+    private final SkipNode head = new SkipNode(null, MAX_LEVEL); // фиктивный узел (голова)
+    private SkipNode tail = head;                          // последний узел нижнего уровня
+    private int level = 1;                                 // текущее количество уровней
+    private int pointsCount;                               // текущее количество точек
+    private long version;                                  // номер версии точек, растет при каждом изменении
+    private long seed = System.nanoTime() | 1;            // состояние генератора уровней (xorshift)
+
+    // конструктор 1: равномерное распределение точек по X
+    public SkipListTabulatedFunction(double leftX, double rightX, int count) {
+        if (leftX >= rightX)
+            throw new IllegalArgumentException("левый >= правый");
+        if (count < 2)
+            throw new IllegalArgumentException("кол-во точек < 2");
+
+        head.width[0] = 1;
+        double step = (rightX - leftX) / (count - 1); // шаг по X между точками
+        for (int i = 0; i < count; i++)
+            insertNode(new FunctionPoint(leftX + i * step, 0)); // создаем точки с Y=0
+    }
+
+    // конструктор 2: по массиву Y-значений
+    public SkipListTabulatedFunction(double leftX, double rightX, double[] values) {
+        if (leftX >= rightX)
+            throw new IllegalArgumentException("левый >= правый");
+        if (values.length < 2)
+            throw new IllegalArgumentException("кол-во точек < 2");
+
+        head.width[0] = 1;
+        double step = (rightX - leftX) / (values.length - 1); // шаг по X между точками
+        for (int i = 0; i < values.length; i++)
+            insertNode(new FunctionPoint(leftX + i * step, values[i])); // создаем точки с заданными Y
+    }
+
+    // случайный уровень нового узла: уровень l+1 получает примерно половина узлов уровня l
+    private int randomLevel() {
+        seed ^= seed << 13;
+        seed ^= seed >>> 7;
+        seed ^= seed << 17;
+        int l = Long.numberOfTrailingZeros(seed) + 1;
+        return Math.min(l, MAX_LEVEL);
+    }
+
+    // вставка узла на место по X (перед первым узлом с x >= point.x) за O(log n)
+    private SkipNode insertNode(FunctionPoint point) {
+        double x = point.getX();
+        SkipNode[] update = new SkipNode[MAX_LEVEL]; // последний узел левее x на каждом уровне
+        int[] rank = new int[MAX_LEVEL];             // номер такого узла (голова - 0)
+
+        SkipNode node = head;
+        int r = 0;
+        for (int l = level - 1; l >= 0; l--) {
+            while (node.next[l] != null && node.next[l].point.getX() < x) {
+                r += node.width[l];
+                node = node.next[l];
+            }
+            update[l] = node;
+            rank[l] = r;
+        }
+
+        int newLevel = randomLevel();
+        if (newLevel > level) { // новые уровни начинаются от головы
+            for (int l = level; l < newLevel; l++) {
+                update[l] = head;
+                rank[l] = 0;
+                head.next[l] = null;
+                head.width[l] = pointsCount + 1;
+            }
+            level = newLevel;
+        }
+
+        SkipNode newNode = new SkipNode(point, newLevel);
+        int newRank = rank[0] + 1;
+        for (int l = 0; l < newLevel; l++) {
+            newNode.next[l] = update[l].next[l];
+            newNode.width[l] = update[l].width[l] - (newRank - rank[l]) + 1;
+            update[l].next[l] = newNode;
+            update[l].width[l] = newRank - rank[l];
+        }
+        for (int l = newLevel; l < level; l++)
+            update[l].width[l]++; // ссылки над новым узлом стали длиннее на один узел
+
+        newNode.prev = update[0];
+        if (newNode.next[0] != null)
+            newNode.next[0].prev = newNode;
+        else
+            tail = newNode;
+
+        pointsCount++; // обновляем количество точек
+        return newNode;
+    }
+
+    // удаление узла по индексу за O(log n)
+    private SkipNode deleteNodeByIndex(int index) {
+        if (index < 0 || index >= pointsCount)
+            throw new FunctionPointIndexOutOfBoundsException("индекс " + index + " вне допустимого диапазона");
+        if (pointsCount <= 2)
+            throw new IllegalStateException("удаление невозможно: кол-во точек меньше 3"); // минимум 2 точки оставлять нельзя
+
+        int target = index + 1; // номер удаляемого узла (голова - 0)
+        SkipNode[] update = new SkipNode[MAX_LEVEL];
+        SkipNode node = head;
+        int r = 0;
+        for (int l = level - 1; l >= 0; l--) {
+            while (node.next[l] != null && r + node.width[l] < target) {
+                r += node.width[l];
+                node = node.next[l];
+            }
+            update[l] = node;
+        }
+
+        SkipNode nodeToDelete = update[0].next[0];
+        for (int l = 0; l < level; l++) {
+            if (update[l].next[l] == nodeToDelete) {
+                update[l].width[l] += nodeToDelete.width[l] - 1;
+                update[l].next[l] = nodeToDelete.next[l];
+            } else {
+                update[l].width[l]--; // ссылка проходила над удаляемым узлом
+            }
+        }
+
+        if (nodeToDelete.next[0] != null)
+            nodeToDelete.next[0].prev = nodeToDelete.prev;
+        else
+            tail = nodeToDelete.prev;
+        while (level > 1 && head.next[level - 1] == null)
+            level--; // убираем опустевшие верхние уровни
+
+        pointsCount--; // обновляем количество точек
+        return nodeToDelete;
+    }
+
+    // получение узла по индексу за O(log n)
+    private SkipNode getNodeByIndex(int index) {
+        if (index < 0 || index >= pointsCount)
+            throw new FunctionPointIndexOutOfBoundsException("индекс " + index + " вне диапазона");
+
+        int target = index + 1;
+        SkipNode node = head;
+        int r = 0;
+        for (int l = level - 1; l >= 0; l--) {
+            while (node.next[l] != null && r + node.width[l] <= target) {
+                r += node.width[l];
+                node = node.next[l];
+            }
+        }
+        return node;
+    }
+
+    // поиск узла, начинающего отрезок с x: первый узел, для которого x < next.x + EPS
+    // (последний узел, если такого нет), за O(log n)
+    private SkipNode findSegmentNode(double x) {
+        SkipNode node = head;
+        for (int l = level - 1; l >= 0; l--) {
+            while (node.next[l] != null && x >= node.next[l].point.getX() + EPS)
+                node = node.next[l];
+        }
+        return node == head ? head.next[0] : node;
+    }
+
+    public int getPointsCount() { return pointsCount; } // вернуть количество точек
+    public long getVersion() { return version; }        // номер версии точек
+    public double getLeftDomainBorder() { return head.next[0].point.getX(); } // левая граница области определения
+    public double getRightDomainBorder() { return tail.point.getX(); }       // правая граница области определения
+
+    // получение значения функции в точке x (линейная интерполяция)
+    public double getFunctionValue(double x) {
+        if (x < getLeftDomainBorder() - EPS || x > getRightDomainBorder() + EPS)
+            return Double.NaN; // x вне области определения
+
+        return valueAt(findSegmentNode(x), x);
+    }
+
+    // вычисление значения функции в точках массива xValues с записью результатов в out;
+    // для возрастающих подряд x сначала делается несколько шагов по нижнему уровню
+    // от предыдущего узла и только потом - поиск от головы
+    public void evaluate(double[] xValues, double[] out) {
+        if (out.length < xValues.length)
+            throw new IllegalArgumentException("массив результатов короче массива x");
+
+        double left = getLeftDomainBorder() - EPS;
+        double right = getRightDomainBorder() + EPS;
+        SkipNode node = null;            // узел отрезка для предыдущего x
+        double prevX = Double.NaN;       // предыдущий x из области определения
+        for (int k = 0; k < xValues.length; k++) {
+            double x = xValues[k];
+            if (x < left || x > right) {
+                out[k] = Double.NaN; // x вне области определения
+                continue;
+            }
+            if (node != null && x >= prevX) {
+                int steps = 0;
+                while (node.next[0] != null && x >= node.next[0].point.getX() + EPS && steps < SegmentSearch.MAX_WALK) {
+                    node = node.next[0];
+                    steps++;
+                }
+                if (node.next[0] != null && x >= node.next[0].point.getX() + EPS)
+                    node = findSegmentNode(x); // отрезок далеко - ищем по уровням
+            } else {
+                node = findSegmentNode(x);
+            }
+            out[k] = valueAt(node, x);
+            prevX = x;
+        }
+    }
+
+    // значение функции в x по узлу, начинающему отрезок
+    private double valueAt(SkipNode node, double x) {
+        SkipNode next = node.next[0];
+        if (next == null) {
+            if (Math.abs(x - node.point.getX()) < EPS)
+                return node.point.getY(); // совпадение с последним узлом
+            return Double.NaN; // значение вне диапазона
+        }
+
+        double x1 = node.point.getX();
+        double x2 = next.point.getX();
+        if (Math.abs(x - x1) < EPS) return node.point.getY(); // совпадение с узлом
+        if (x <= x1 - EPS) return Double.NaN; // x левее первого отрезка ровно на EPS
+        // линейная интерполяция
+        return node.point.getY() + (next.point.getY() - node.point.getY()) * (x - x1) / (x2 - x1);
+    }
+
+    // проверка, что x лежит строго между соседями узла
+    private boolean isInOrder(SkipNode node, double x) {
+        return (node.prev == head || x > node.prev.point.getX()) &&
+                (node.next[0] == null || x < node.next[0].point.getX());
+    }
+
+    // обход всех точек по нижнему уровню за O(n)
+    public void forEachPoint(DoubleBinaryConsumer action) {
+        for (SkipNode node = head.next[0]; node != null; node = node.next[0])
+            action.accept(node.point.getX(), node.point.getY());
+    }
+
+    // курсор по нижнему уровню списка: каждый шаг - O(1)
+    public PointCursor cursor() {
+        return new PointCursor() {
+            private SkipNode node = head; // текущий узел (голова - перед первой точкой)
+
+            public boolean next() {
+                if (node.next[0] == null)
+                    return false;
+                node = node.next[0];
+                return true;
+            }
+            public double getX() { return node.point.getX(); }
+            public double getY() { return node.point.getY(); }
+            public void reset() { node = head; }
+        };
+    }
+
+    public FunctionPoint getPoint(int index) {
+        return new FunctionPoint(getNodeByIndex(index).point); // вернуть копию точки
+    }
+
+    public void setPoint(int index, FunctionPoint point) throws InappropriateFunctionPointException {
+        SkipNode node = getNodeByIndex(index);
+        if (!isInOrder(node, point.getX()))
+            throw new InappropriateFunctionPointException("Х вне порядка"); // проверка порядка X
+        node.point = new FunctionPoint(point); // установка новой точки
+        version++; // новая версия точек
+    }
+
+    public double getPointX(int index) { return getNodeByIndex(index).point.getX(); } // получить X точки
+
+    public void setPointX(int index, double x) throws InappropriateFunctionPointException {
+        SkipNode node = getNodeByIndex(index);
+        if (!isInOrder(node, x))
+            throw new InappropriateFunctionPointException("Х вне порядка"); // проверка порядка X
+        node.point.setX(x); // установить новое X
+        version++; // новая версия точек
+    }
+
+    public double getPointY(int index) { return getNodeByIndex(index).point.getY(); } // получить Y точки
+
+    public void setPointY(int index, double y) {
+        getNodeByIndex(index).point.setY(y); // установить Y
+        version++; // новая версия точек
+    }
+
+    // добавление новой точки с проверкой на дублирование X за O(log n)
+    public void addPoint(FunctionPoint point) throws InappropriateFunctionPointException {
+        double x = point.getX();
+        SkipNode node = head;
+        for (int l = level - 1; l >= 0; l--) {
+            while (node.next[l] != null && node.next[l].point.getX() < x)
+                node = node.next[l];
+        }
+        // точка с близким X может быть только среди соседей места вставки
+        if ((node != head && Math.abs(node.point.getX() - x) < EPS) ||
+                (node.next[0] != null && Math.abs(node.next[0].point.getX() - x) < EPS))
+            throw new InappropriateFunctionPointException("дубликат Х"); // проверка на дублирование
+
+        insertNode(new FunctionPoint(point));
+        version++; // новая версия точек
+    }
+
+    public void deletePoint(int index) {
+        deleteNodeByIndex(index); // удаление точки через приватный метод
+        version++; // новая версия точек
+    }
+}
@@ -4,6 +4,13 @@ public interface TabulatedFunction {
     //возвращает количество точек в функции
     int getPointsCount();
 
+    //возвращает номер версии точек: он растет при каждом изменении точек функции,
+    //поэтому по совпадению номеров можно понять, что функция не менялась с прошлого чтения
+    //у неизменяемых функций всегда 0, у снимка - версия функции, с которой он снят
+    default long getVersion() {
+        return 0;
+    }
+
     //возвращает левую границу области определения (минимальный x)
     double getLeftDomainBorder();
 
@@ -14,6 +21,101 @@ public interface TabulatedFunction {
     //возвращает double.nan, если x вне области определения
     double getFunctionValue(double x);
 
+    //вычисляет значения функции во всех точках массива xValues и записывает их в out
+    //out[i] совпадает с getFunctionValue(xValues[i]); отсортированный по возрастанию xValues обрабатывается быстрее
+    //выбрасывает исключение, если out короче xValues
+    default void evaluate(double[] xValues, double[] out) {
+        if (out.length < xValues.length)
+            throw new IllegalArgumentException("массив результатов короче массива x");
+        for (int i = 0; i < xValues.length; i++)
+            out[i] = getFunctionValue(xValues[i]);
+    }
+
+    //вычисляет определенный интеграл функции от a до b (площадь под ломаной, по формуле трапеций)
+    //при a > b возвращает интеграл с обратным знаком, double.nan - если a или b вне области определения
+    //общая реализация проходит все точки; реализации могут отвечать быстрее
+    default double integrate(double a, double b) {
+        if (a > b)
+            return -integrate(b, a);
+        double eps = Math.ulp(1.0);
+        if (!(a >= getLeftDomainBorder() - eps && b <= getRightDomainBorder() + eps))
+            return Double.NaN;
+
+        double result = 0;
+        PointCursor cursor = cursor();
+        cursor.next();
+        double x1 = cursor.getX(), y1 = cursor.getY();
+        while (cursor.next() && x1 < b) {
+            double x2 = cursor.getX(), y2 = cursor.getY();
+            double lo = Math.max(a, x1);
+            double hi = Math.min(b, x2);
+            if (lo < hi) { // часть отрезка внутри [a, b]
+                double k = (y2 - y1) / (x2 - x1);
+                result += (hi - lo) * (y1 + k * (lo - x1) + y1 + k * (hi - x1)) / 2;
+            }
+            x1 = x2;
+            y1 = y2;
+        }
+        return result;
+    }
+
+    //возвращает производную функции в точке x (наклон отрезка, содержащего x;
+    //в узле - наклон отрезка слева от него, в левой границе - первого отрезка)
+    //возвращает double.nan, если x вне области определения
+    default double derivative(double x) {
+        double eps = Math.ulp(1.0);
+        if (!(x >= getLeftDomainBorder() - eps && x <= getRightDomainBorder() + eps))
+            return Double.NaN;
+
+        PointCursor cursor = cursor();
+        cursor.next();
+        double x1 = cursor.getX(), y1 = cursor.getY();
+        double slope = Double.NaN; // наклон последнего пройденного отрезка
+        while (cursor.next()) {
+            double x2 = cursor.getX(), y2 = cursor.getY();
+            slope = (y2 - y1) / (x2 - x1);
+            if (x < x2 + eps)
+                break;
+            x1 = x2;
+            y1 = y2;
+        }
+        return slope;
+    }
+
+    //возвращает неизменяемую копию текущих точек функции, которую можно передавать
+    //между потоками без синхронизации
+    default ImmutableTabulatedFunction snapshot() {
+        long version = getVersion();
+        int count = getPointsCount();
+        double[] xs = new double[count];
+        double[] ys = new double[count];
+        PointCursor cursor = cursor();
+        for (int i = 0; i < count && cursor.next(); i++) {
+            xs[i] = cursor.getX();
+            ys[i] = cursor.getY();
+        }
+        return new ImmutableTabulatedFunction(xs, ys, SegmentSearch.uniformStep(xs, count), version);
+    }
+
+    //вызывает action для каждой точки функции слева направо, не создавая объектов точек
+    default void forEachPoint(DoubleBinaryConsumer action) {
+        int count = getPointsCount();
+        for (int i = 0; i < count; i++)
+            action.accept(getPointX(i), getPointY(i));
+    }
+
+    //возвращает курсор для обхода точек функции слева направо
+    default PointCursor cursor() {
+        return new PointCursor() {
+            private int index = -1; // индекс текущей точки
+
+            public boolean next() { return ++index < getPointsCount(); }
+            public double getX() { return getPointX(index); }
+            public double getY() { return getPointY(index); }
+            public void reset() { index = -1; }
+        };
+    }
+
     //возвращает точку по указанному индексу
     //выбрасывает исключение, если индекс выходит за границы
     FunctionPoint getPoint(int index) throws FunctionPointIndexOutOfBoundsException;
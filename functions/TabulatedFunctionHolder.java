@@ -0,0 +1,57 @@
+package functions;
+
+// держатель текущей версии табулированной функции для общего доступа из нескольких потоков:
+// читатели получают неизменяемый снимок без блокировок, а писатель готовит новую версию
+// на изменяемой копии и публикует ее целиком (копирование при записи), поэтому читатели
+// никогда не видят частично примененный набор изменений
+//
+// номер версии опубликованного снимка ведет сам держатель: каждая публикация получает номер
+// больше предыдущего, даже если публикуется функция с меньшим собственным номером версии
+public class TabulatedFunctionHolder {
+    // набор изменений, применяемый к изменяемой копии текущей версии
+    public interface Edit {
+        void apply(TabulatedFunction function);
+    }
+
+    private volatile ImmutableTabulatedFunction current; // текущая опубликованная версия
+    private long version;                                // номер текущей версии (под блокировкой держателя)
+
+    public TabulatedFunctionHolder(TabulatedFunction function) {
+        current = function.snapshot();
+        version = current.getVersion();
+    }
+
+    // текущая версия; повторные вызовы могут вернуть разные версии, поэтому
+    // для согласованного чтения нужно один раз взять версию и работать с ней
+    public ImmutableTabulatedFunction get() { return current; }
+
+    // публикация снимка заданной функции вместо текущей версии
+    public synchronized void set(TabulatedFunction function) {
+        publish(function.snapshot());
+    }
+
+    // публикация снимка function, только если текущая версия - expected
+    public synchronized boolean compareAndSet(ImmutableTabulatedFunction expected, TabulatedFunction function) {
+        if (current != expected)
+            return false;
+        publish(function.snapshot());
+        return true;
+    }
+
+    // применение набора изменений: изменения выполняются над копией текущей версии
+    // и публикуются одной записью; если edit выбросил исключение, версия не меняется;
+    // копия начинает нумерацию с текущей версии, поэтому номер вырастает на число изменений
+    public synchronized ImmutableTabulatedFunction update(Edit edit) {
+        ArrayTabulatedFunction copy = current.toArrayFunction();
+        edit.apply(copy);
+        publish(copy.snapshot());
+        return current;
+    }
+
+    // публикация снимка под номером версии больше текущего: собственный номер снимка
+    // сохраняется, если он уже больше, иначе номер увеличивается на единицу
+    private void publish(ImmutableTabulatedFunction snapshot) {
+        version = Math.max(version + 1, snapshot.getVersion());
+        current = snapshot.withVersion(version);
+    }
+}
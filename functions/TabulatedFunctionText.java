@@ -0,0 +1,298 @@
+package functions;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// потоковое чтение и запись табулированных функций в текстовом виде: одна точка на строку,
+// X и Y разделены запятой, точкой с запятой или пробельными символами (CSV, TSV, "x y");
+// пустые строки и строки, начинающиеся с '#', пропускаются, первая строка может быть заголовком
+//
+// файл читается блоками в один буфер, числа разбираются прямо из байтов без создания строк;
+// порядок X проверяется по ходу чтения, а функция строится из накопленных массивов за один проход
+public final class TabulatedFunctionText {
+    private static final int BUFFER_SIZE = 1 << 16;    // размер буфера чтения и записи
+    private static final double EPS = Math.ulp(1.0);  // машинный эпсилон для сравнения double
+
+    // точные степени 10, представимые в double
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+
+    private TabulatedFunctionText() {
+    }
+
+    // чтение функции из файла в ArrayTabulatedFunction
+    public static ArrayTabulatedFunction readArray(Path file) throws IOException {
+        Reader reader = read(file);
+        return new ArrayTabulatedFunction(reader.xs, reader.ys, reader.count,
+                SegmentSearch.uniformStep(reader.xs, reader.count));
+    }
+
+    // чтение функции из файла в LinkedListTabulatedFunction
+    public static LinkedListTabulatedFunction readLinkedList(Path file) throws IOException {
+        Reader reader = read(file);
+        return new LinkedListTabulatedFunction(reader.xs, reader.ys, reader.count);
+    }
+
+    // чтение всех точек файла
+    private static Reader read(Path file) throws IOException {
+        Reader reader = new Reader();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            reader.read(channel);
+        }
+        if (reader.count < 2)
+            throw new IOException("в файле " + file + " меньше 2 точек");
+        return reader;
+    }
+
+    // запись точек функции в файл по одной на строку в виде "x,y"; числа записываются
+    // через Double.toString, которое читается обратно (Double.parseDouble) точно в то же значение double
+    public static void write(TabulatedFunction function, Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            PointCursor cursor = function.cursor();
+            while (cursor.next()) {
+                String x = Double.toString(cursor.getX());
+                String y = Double.toString(cursor.getY());
+                if (buffer.remaining() < x.length() + y.length() + 2)
+                    flush(channel, buffer);
+                put(buffer, x);
+                buffer.put((byte) ',');
+                put(buffer, y);
+                buffer.put((byte) '\n');
+            }
+            flush(channel, buffer);
+        }
+    }
+
+    // запись символов числа (только ASCII) в буфер
+    private static void put(ByteBuffer buffer, String s) {
+        for (int i = 0; i < s.length(); i++)
+            buffer.put((byte) s.charAt(i));
+    }
+
+    // сброс накопленных байтов буфера в канал
+    private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining())
+            channel.write(buffer);
+        buffer.clear();
+    }
+
+    // разбор файла: буфер байтов, разбор строк и накопление точек
+    private static final class Reader {
+        byte[] bytes = new byte[BUFFER_SIZE]; // буфер чтения
+        int position;                        // начало неразобранной части буфера
+        int limit;                           // конец прочитанных данных в буфере
+        long line;                           // номер текущей строки
+        boolean started;                     // встретилась непустая строка (заголовок возможен только в первой)
+
+        double[] xs = new double[1024];      // накопленные точки
+        double[] ys = new double[1024];
+        int count;
+
+        double value;                        // результат parseNumber
+        int end;                             // позиция после разобранного числа
+
+        void read(FileChannel channel) throws IOException {
+            boolean eof = false;
+            while (true) {
+                // поиск конца строки в прочитанных данных
+                int newline = position;
+                while (newline < limit && bytes[newline] != '\n')
+                    newline++;
+                if (newline == limit && !eof) {
+                    // строка не закончилась в буфере - дочитываем
+                    if (position > 0) {
+                        System.arraycopy(bytes, position, bytes, 0, limit - position);
+                        limit -= position;
+                        position = 0;
+                    }
+                    if (limit == bytes.length) { // строка длиннее буфера
+                        byte[] grown = new byte[bytes.length * 2];
+                        System.arraycopy(bytes, 0, grown, 0, limit);
+                        bytes = grown;
+                    }
+                    int n = channel.read(ByteBuffer.wrap(bytes, limit, bytes.length - limit));
+                    if (n < 0)
+                        eof = true;
+                    else
+                        limit += n;
+                    continue;
+                }
+                if (position == limit && eof)
+                    return;
+
+                line++;
+                int lineEnd = newline;
+                if (lineEnd > position && bytes[lineEnd - 1] == '\r')
+                    lineEnd--;
+                parseLine(position, lineEnd);
+                position = newline < limit ? newline + 1 : limit;
+            }
+        }
+
+        // разбор одной строки bytes[from, to)
+        private void parseLine(int from, int to) throws IOException {
+            int p = skipBlanks(from, to);
+            if (p == to || bytes[p] == '#')
+                return; // пустая строка или комментарий
+
+            boolean first = !started;
+            started = true;
+            if (!parseNumber(p, to)) {
+                if (first)
+                    return; // заголовок
+                throw error("не удалось разобрать X");
+            }
+            double x = value;
+            p = skipBlanks(end, to);
+            if (p < to && (bytes[p] == ',' || bytes[p] == ';'))
+                p = skipBlanks(p + 1, to);
+            if (!parseNumber(p, to))
+                throw error("не удалось разобрать Y");
+            double y = value;
+            if (skipBlanks(end, to) != to)
+                throw error("лишние данные после Y");
+            add(x, y);
+        }
+
+        // добавление точки с проверкой порядка X
+        private void add(double x, double y) throws IOException {
+            if (Double.isNaN(x) || Double.isInfinite(x))
+                throw error("X должен быть конечным числом");
+            if (count > 0) {
+                if (x < xs[count - 1])
+                    throw error("X вне порядка");
+                if (x - xs[count - 1] < EPS)
+                    throw error("дубликат Х");
+            }
+            if (count == xs.length) { // рост в полтора раза
+                int capacity = xs.length + (xs.length >> 1) + 1;
+                double[] grownXs = new double[capacity];
+                double[] grownYs = new double[capacity];
+                System.arraycopy(xs, 0, grownXs, 0, count);
+                System.arraycopy(ys, 0, grownYs, 0, count);
+                xs = grownXs;
+                ys = grownYs;
+            }
+            xs[count] = x;
+            ys[count++] = y;
+        }
+
+        private IOException error(String message) {
+            return new IOException("строка " + line + ": " + message);
+        }
+
+        // пропуск пробелов и табуляций
+        private int skipBlanks(int p, int to) {
+            while (p < to && (bytes[p] == ' ' || bytes[p] == '\t'))
+                p++;
+            return p;
+        }
+
+        // разбор десятичного числа, начинающегося в bytes[p]; результат - в value,
+        // позиция после числа - в end; false, если число записано неверно
+        //
+        // мантисса до 18 значащих цифр набирается в long; если она меньше 2^53, а порядок
+        // по модулю не больше 22, то и мантисса, и степень 10 точно представимы в double,
+        // и одно умножение или деление дает правильно округленный результат (быстрый путь
+        // Клингера); остальные числа разбирает Double.parseDouble
+        private boolean parseNumber(int p, int to) {
+            int start = p;
+            boolean negative = false;
+            if (p < to && (bytes[p] == '-' || bytes[p] == '+')) {
+                negative = bytes[p] == '-';
+                p++;
+            }
+
+            long mantissa = 0;
+            int digits = 0;         // значащих цифр в мантиссе
+            int exponent = 0;       // десятичный порядок мантиссы
+            boolean exact = true;   // все цифры поместились в мантиссу
+            boolean any = false;    // встретилась хотя бы одна цифра
+            while (p < to && bytes[p] >= '0' && bytes[p] <= '9') {
+                any = true;
+                if (digits < 18) {
+                    mantissa = mantissa * 10 + (bytes[p] - '0');
+                    if (mantissa != 0)
+                        digits++;
+                } else {
+                    exponent++;
+                    exact = false;
+                }
+                p++;
+            }
+            if (p < to && bytes[p] == '.') {
+                p++;
+                while (p < to && bytes[p] >= '0' && bytes[p] <= '9') {
+                    any = true;
+                    if (digits < 18) {
+                        mantissa = mantissa * 10 + (bytes[p] - '0');
+                        if (mantissa != 0)
+                            digits++;
+                        exponent--;
+                    } else {
+                        exact = false;
+                    }
+                    p++;
+                }
+            }
+            if (!any)
+                return parseSpecial(start, p, to);
+
+            if (p < to && (bytes[p] == 'e' || bytes[p] == 'E')) {
+                p++;
+                boolean negativeExponent = false;
+                if (p < to && (bytes[p] == '-' || bytes[p] == '+')) {
+                    negativeExponent = bytes[p] == '-';
+                    p++;
+                }
+                if (p == to || bytes[p] < '0' || bytes[p] > '9')
+                    return false;
+                int e = 0;
+                while (p < to && bytes[p] >= '0' && bytes[p] <= '9') {
+                    if (e < 100000)
+                        e = e * 10 + (bytes[p] - '0');
+                    p++;
+                }
+                exponent += negativeExponent ? -e : e;
+            }
+            if (!isDelimiter(p, to))
+                return false;
+            end = p;
+
+            if (exact && mantissa < (1L << 53) && exponent >= -22 && exponent <= 22) {
+                double result = exponent >= 0 ? mantissa * POWERS_OF_TEN[exponent]
+                        : mantissa / POWERS_OF_TEN[-exponent];
+                value = negative ? -result : result;
+            } else {
+                value = Double.parseDouble(new String(bytes, start, p - start, StandardCharsets.ISO_8859_1));
+            }
+            return true;
+        }
+
+        // разбор NaN и Infinity (со знаком)
+        private boolean parseSpecial(int start, int p, int to) {
+            int q = p;
+            while (q < to && !isDelimiter(q, to))
+                q++;
+            String token = new String(bytes, p, q - p, StandardCharsets.ISO_8859_1);
+            if (!token.equals("NaN") && !token.equals("Infinity"))
+                return false;
+            value = Double.parseDouble(new String(bytes, start, q - start, StandardCharsets.ISO_8859_1));
+            end = q;
+            return true;
+        }
+
+        // заканчивается ли число в позиции p
+        private boolean isDelimiter(int p, int to) {
+            return p == to || bytes[p] == ' ' || bytes[p] == '\t' || bytes[p] == ',' || bytes[p] == ';';
+        }
+    }
+}
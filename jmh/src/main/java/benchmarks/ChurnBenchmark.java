@@ -0,0 +1,52 @@
+package benchmarks;
+
+import functions.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// изменение набора точек: добавление точки между узлами сетки и удаление ее же,
+// поэтому количество точек между операциями не меняется
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g", "-XX:MaxDirectMemorySize=4g"})
+@State(Scope.Thread)
+public class ChurnBenchmark {
+    private static final int RANDOM_COUNT = 1 << 16; // размер таблицы случайных чисел
+
+    @Param({"10", "100", "1000", "10000", "100000", "1000000", "10000000"})
+    public int pointsCount;
+
+    @Param({Implementations.ARRAY, Implementations.LINKED_LIST, Implementations.SKIP_LIST,
+            Implementations.CONCURRENT, Implementations.OFF_HEAP, Implementations.RING_BUFFER})
+    public String implementation;
+
+    private TabulatedFunction function;
+    private final int[] randomSegment = new int[RANDOM_COUNT]; // случайные номера отрезков с 1
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        function = Implementations.create(implementation, Implementations.values(pointsCount));
+        long[] bits = Implementations.randomBits(RANDOM_COUNT);
+        for (int i = 0; i < RANDOM_COUNT; i++)
+            randomSegment[i] = 1 + (int) ((bits[i] >>> 33) % (pointsCount - 1));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        Implementations.close(function);
+    }
+
+    // точка в середине случайного отрезка: вставляется с номером index и сразу удаляется
+    @Benchmark
+    public double addDeletePoint() throws InappropriateFunctionPointException {
+        int index = randomSegment[next++ & (RANDOM_COUNT - 1)];
+        double x = (index - 0.5) / (pointsCount - 1);
+        function.addPoint(new FunctionPoint(x, 1));
+        function.deletePoint(index);
+        return x;
+    }
+}
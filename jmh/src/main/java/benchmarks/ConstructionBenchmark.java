@@ -0,0 +1,38 @@
+package benchmarks;
+
+import functions.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// создание функции по массиву ординат; профилировщик GC показывает, сколько памяти
+// в куче занимает каждая реализация (у OffHeap точки вне кучи)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g", "-XX:MaxDirectMemorySize=4g"})
+@State(Scope.Thread)
+public class ConstructionBenchmark {
+    @Param({"10", "100", "1000", "10000", "100000", "1000000", "10000000"})
+    public int pointsCount;
+
+    @Param({Implementations.ARRAY, Implementations.LINKED_LIST, Implementations.SKIP_LIST,
+            Implementations.CONCURRENT, Implementations.OFF_HEAP, Implementations.RING_BUFFER})
+    public String implementation;
+
+    private double[] values;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        values = Implementations.values(pointsCount);
+    }
+
+    @Benchmark
+    public int construct() {
+        TabulatedFunction function = Implementations.create(implementation, values);
+        int count = function.getPointsCount();
+        Implementations.close(function); // память вне кучи освобождается сразу, а не при сборке мусора
+        return count;
+    }
+}
@@ -0,0 +1,58 @@
+package benchmarks;
+
+import functions.*;
+
+// создание и освобождение сравниваемых реализаций TabulatedFunction по имени из @Param
+final class Implementations {
+    // имена реализаций для @Param (без суффикса TabulatedFunction)
+    static final String ARRAY = "Array";
+    static final String LINKED_LIST = "LinkedList";
+    static final String SKIP_LIST = "SkipList";
+    static final String CONCURRENT = "Concurrent";
+    static final String OFF_HEAP = "OffHeap";
+    static final String RING_BUFFER = "RingBuffer";
+
+    private Implementations() {
+    }
+
+    // функция реализации name на отрезке [0, 1] с ординатами values
+    static TabulatedFunction create(String name, double[] values) {
+        switch (name) {
+            case ARRAY: return new ArrayTabulatedFunction(0, 1, values);
+            case LINKED_LIST: return new LinkedListTabulatedFunction(0, 1, values);
+            case SKIP_LIST: return new SkipListTabulatedFunction(0, 1, values);
+            case CONCURRENT: return new ConcurrentTabulatedFunction(0, 1, values);
+            case OFF_HEAP: return new OffHeapTabulatedFunction(0, 1, values);
+            case RING_BUFFER: return new RingBufferTabulatedFunction(0, 1, values);
+            default: throw new IllegalArgumentException("неизвестная реализация " + name);
+        }
+    }
+
+    // освобождение ресурсов функции, если она их держит (OffHeapTabulatedFunction)
+    static void close(TabulatedFunction function) {
+        if (function instanceof OffHeapTabulatedFunction)
+            ((OffHeapTabulatedFunction) function).close();
+    }
+
+    // ординаты для n точек
+    static double[] values(int n) {
+        double[] values = new double[n];
+        for (int i = 0; i < n; i++)
+            values[i] = Math.sin(i * 0.001);
+        return values;
+    }
+
+    // псевдослучайные числа xorshift с фиксированным начальным значением, чтобы
+    // последовательность обращений была одинаковой во всех запусках
+    static long[] randomBits(int count) {
+        long[] bits = new long[count];
+        long seed = 0x9E3779B97F4A7C15L;
+        for (int i = 0; i < count; i++) {
+            seed ^= seed << 13;
+            seed ^= seed >>> 7;
+            seed ^= seed << 17;
+            bits[i] = seed;
+        }
+        return bits;
+    }
+}
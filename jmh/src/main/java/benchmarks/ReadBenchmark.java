@@ -0,0 +1,107 @@
+package benchmarks;
+
+import functions.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// чтение функции: значения в случайных и последовательных x, пакетное вычисление,
+// интеграл и доступ к точкам по случайному и последовательному индексу
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g", "-XX:MaxDirectMemorySize=4g"})
+@State(Scope.Thread)
+public class ReadBenchmark {
+    private static final int RANDOM_COUNT = 1 << 16; // размер таблицы случайных чисел
+    private static final int BATCH = 1024;           // x в одном пакетном вычислении
+
+    @Param({"10", "100", "1000", "10000", "100000", "1000000", "10000000"})
+    public int pointsCount;
+
+    @Param({Implementations.ARRAY, Implementations.LINKED_LIST, Implementations.SKIP_LIST,
+            Implementations.CONCURRENT, Implementations.OFF_HEAP, Implementations.RING_BUFFER})
+    public String implementation;
+
+    private TabulatedFunction function;
+    private final double[] randomX = new double[RANDOM_COUNT];  // случайные x из [0, 1)
+    private final int[] randomIndex = new int[RANDOM_COUNT];    // случайные индексы точек
+    private final double[] batch = new double[BATCH];
+    private final double[] batchOut = new double[BATCH];
+    private int next;        // номер следующего случайного числа
+    private int sequential;  // номер следующей точки при последовательном обходе
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        function = Implementations.create(implementation, Implementations.values(pointsCount));
+        long[] bits = Implementations.randomBits(RANDOM_COUNT);
+        for (int i = 0; i < RANDOM_COUNT; i++) {
+            randomX[i] = (bits[i] >>> 11) * 0x1.0p-53;
+            randomIndex[i] = (int) ((bits[i] >>> 33) % pointsCount);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        Implementations.close(function);
+    }
+
+    // номер следующей точки при последовательном обходе
+    private int nextSequential() {
+        int index = sequential;
+        sequential = index + 1 == pointsCount ? 0 : index + 1;
+        return index;
+    }
+
+    @Benchmark
+    public double valueRandom() {
+        return function.getFunctionValue(randomX[next++ & (RANDOM_COUNT - 1)]);
+    }
+
+    @Benchmark
+    public double valueSequential() {
+        return function.getFunctionValue((nextSequential() + 0.5) / pointsCount);
+    }
+
+    // плотная выборка: 1024 возрастающих x на половине области определения
+    @Benchmark
+    public double[] evaluateDense() {
+        double from = randomX[next++ & (RANDOM_COUNT - 1)] * 0.5;
+        for (int j = 0; j < BATCH; j++)
+            batch[j] = from + j * 0.5 / BATCH;
+        function.evaluate(batch, batchOut);
+        return batchOut;
+    }
+
+    // пакетное вычисление в 1024 случайных x из всей области определения
+    @Benchmark
+    public double[] evaluateRandom() {
+        int from = next & (RANDOM_COUNT - 1) & -BATCH;
+        next += BATCH;
+        System.arraycopy(randomX, from, batch, 0, BATCH);
+        function.evaluate(batch, batchOut);
+        return batchOut;
+    }
+
+    @Benchmark
+    public double integrateRandom() {
+        double a = randomX[next++ & (RANDOM_COUNT - 1)];
+        return function.integrate(a * 0.5, a);
+    }
+
+    @Benchmark
+    public double pointXRandom() {
+        return function.getPointX(randomIndex[next++ & (RANDOM_COUNT - 1)]);
+    }
+
+    @Benchmark
+    public double pointXSequential() {
+        return function.getPointX(nextSequential());
+    }
+
+    @Benchmark
+    public FunctionPoint pointSequential() {
+        return function.getPoint(nextSequential());
+    }
+}